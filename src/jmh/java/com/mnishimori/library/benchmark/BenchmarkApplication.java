@@ -0,0 +1,118 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.LibraryApiApplication;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots the application, by default without a web server, on a private in-memory H2 database and
+ * seeds it through plain JDBC batches, so that setting up large tables doesn't dominate a trial.
+ */
+final class BenchmarkApplication {
+
+  static final String[] WORDS = {"aventuras", "mistério", "viagem", "jardim", "segredo",
+      "cidade", "oceano", "montanha", "história", "amor", "guerra", "noite", "rio", "sombra",
+      "estrela", "tempo", "caminho", "livro", "vento", "fogo", "memória", "ilha", "deserto",
+      "floresta", "castelo", "reino", "sonho", "verão", "inverno", "luz", "espelho", "porto",
+      "dragão", "feiticeiro", "labirinto", "horizonte", "silêncio"};
+  static final String[] AUTHORS = {"Artur", "Maria Silva", "João Souza", "Ana Costa",
+      "Pedro Lima", "Clara Nunes", "Rafael Alves", "Beatriz Rocha", "Lucas Martins",
+      "Helena Duarte", "Gabriel Ferreira", "Sofia Ramos", "Miguel Teixeira"};
+
+  private static final int BATCH_SIZE = 1000;
+  private static final String INSERT_BOOK =
+      "insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, 0)";
+
+  private BenchmarkApplication() {
+  }
+
+  static ConfigurableApplicationContext start(String... properties) {
+    return start(WebApplicationType.NONE, properties);
+  }
+
+  /**
+   * Like {@link #start}, but with the servlet web stack, listening on a random port.
+   */
+  static ConfigurableApplicationContext startWeb(String... properties) {
+    return start(WebApplicationType.SERVLET, properties);
+  }
+
+  private static ConfigurableApplicationContext start(WebApplicationType type,
+      String... properties) {
+    return new SpringApplicationBuilder(LibraryApiApplication.class)
+        .web(type)
+        .bannerMode(Banner.Mode.OFF)
+        .logStartupInfo(false)
+        .properties(
+            "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1",
+            "spring.jpa.open-in-view=false",
+            "server.port=0",
+            "logging.level.root=WARN")
+        // as arguments, since application.properties would override default properties
+        .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+  }
+
+  static String title(int i) {
+    return WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+  }
+
+  static String author(int i) {
+    return AUTHORS[i % AUTHORS.length];
+  }
+
+  static String isbn(int i) {
+    return String.format("978%010d", i);
+  }
+
+  static void seedBooks(JdbcTemplate jdbc, int rows) {
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    for (int i = 1; i <= rows; i++) {
+      batch.add(new Object[]{(long) i, title(i), author(i), isbn(i)});
+      if (batch.size() == BATCH_SIZE) {
+        insert(jdbc, INSERT_BOOK, batch);
+      }
+    }
+    insert(jdbc, INSERT_BOOK, batch);
+    jdbc.execute("alter sequence book_seq restart with " + (rows + 51));
+  }
+
+  /**
+   * Seeds returned loans spread over the first {@code books} books; book ids above
+   * {@code activeFrom} also get one active loan.
+   */
+  static void seedLoans(JdbcTemplate jdbc, int books, int loans, int activeFrom) {
+    var sql = "insert into loan (id, customer, book_id, loan_date, returned, active_book_id) "
+        + "values (?, ?, ?, current_date, ?, ?)";
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    long id = 1;
+    for (int i = 0; i < loans; i++) {
+      batch.add(new Object[]{id++, "Cliente " + i, (long) (i % books) + 1, true, null});
+      if (batch.size() == BATCH_SIZE) {
+        insert(jdbc, sql, batch);
+      }
+    }
+    for (long bookId = activeFrom + 1; bookId <= books; bookId++) {
+      batch.add(new Object[]{id++, "Cliente ativo", bookId, false, bookId});
+      if (batch.size() == BATCH_SIZE) {
+        insert(jdbc, sql, batch);
+      }
+    }
+    insert(jdbc, sql, batch);
+    jdbc.execute("alter sequence loan_seq restart with " + (id + 50));
+  }
+
+  private static void insert(JdbcTemplate jdbc, String sql, List<Object[]> batch) {
+    if (!batch.isEmpty()) {
+      jdbc.batchUpdate(sql, batch);
+      batch.clear();
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookImportResult;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Rows per second written by the service behind POST /api/books (one save per book) and behind
+ * POST /api/books/batch (one saveAll per chunk).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookImportBenchmark {
+
+  private static final int CHUNK = 500;
+
+  private ConfigurableApplicationContext context;
+  private BookService service;
+  private long sequence;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("library.search.index.enabled=false");
+    service = context.getBean(BookService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Book singleItem() {
+    return service.save(nextBook());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CHUNK)
+  public List<BookImportResult> batch() {
+    var books = new ArrayList<Book>(CHUNK);
+    for (int i = 0; i < CHUNK; i++) {
+      books.add(nextBook());
+    }
+    return service.saveAll(books);
+  }
+
+  private Book nextBook() {
+    var i = (int) (sequence++ % Integer.MAX_VALUE);
+    return Book.builder()
+        .title(BenchmarkApplication.title(i))
+        .author(BenchmarkApplication.author(i))
+        .isbn("bench-" + sequence)
+        .build();
+  }
+}
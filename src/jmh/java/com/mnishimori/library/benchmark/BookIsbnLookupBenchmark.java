@@ -0,0 +1,74 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * ISBN lookups over a hot set of books, through the cached service path and straight through
+ * the repository, with and without the Hibernate query cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookIsbnLookupBenchmark {
+
+  @Param({"100000"})
+  public int rows;
+
+  @Param({"2000"})
+  public int hotSet;
+
+  @Param({"true", "false"})
+  public boolean secondLevelCache;
+
+  private ConfigurableApplicationContext context;
+  private BookService service;
+  private BookRepository repository;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("library.search.index.enabled=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+        "spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+    BenchmarkApplication.seedBooks(context.getBean(JdbcTemplate.class), rows);
+    service = context.getBean(BookService.class);
+    repository = context.getBean(BookRepository.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Optional<Book> service() {
+    return service.findByIsbn(BenchmarkApplication.isbn(next++ % hotSet + 1));
+  }
+
+  @Benchmark
+  public Optional<Book> repository() {
+    return repository.findByIsbn(BenchmarkApplication.isbn(next++ % hotSet + 1));
+  }
+}
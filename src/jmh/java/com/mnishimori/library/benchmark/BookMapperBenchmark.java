@@ -0,0 +1,59 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.presentation.dto.BookInputDto;
+import com.mnishimori.library.presentation.dto.BookMapper;
+import com.mnishimori.library.presentation.dto.BookOutputDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+  private BookInputDto input;
+  private Book book;
+  private List<Book> page;
+
+  @Setup
+  public void setUp() {
+    input = new BookInputDto("As aventuras", "Artur", "9780000000001");
+    book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("9780000000001")
+        .build();
+    page = new ArrayList<>();
+    for (int i = 1; i <= 20; i++) {
+      page.add(Book.builder().id((long) i).title(BenchmarkApplication.title(i))
+          .author(BenchmarkApplication.author(i)).isbn(BenchmarkApplication.isbn(i)).build());
+    }
+  }
+
+  @Benchmark
+  public Book from() {
+    return BookMapper.from(input);
+  }
+
+  @Benchmark
+  public BookOutputDto to() {
+    return BookMapper.to(book);
+  }
+
+  @Benchmark
+  public List<BookOutputDto> toListOfAPage() {
+    return BookMapper.toList(page);
+  }
+}
@@ -0,0 +1,89 @@
+package com.mnishimori.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mnishimori.library.infrastructure.web.CborHttpMessageConverter;
+import com.mnishimori.library.infrastructure.web.SmileHttpMessageConverter;
+import com.mnishimori.library.presentation.dto.BookOutputDto;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Serializes the body of GET /api/books with the mappers Spring Boot configures for MVC, in each
+ * format the API negotiates, and parses it back the way a client would. The payload size of each
+ * format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookPageSerializationBenchmark {
+
+  @Param({"20", "100"})
+  public int pageSize;
+
+  @Param({"json", "cbor", "smile"})
+  public String format;
+
+  private AnnotationConfigApplicationContext context;
+  private ObjectMapper objectMapper;
+  private Page<BookOutputDto> page;
+  private byte[] body;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    context = new AnnotationConfigApplicationContext(JacksonAutoConfiguration.class,
+        CborHttpMessageConverter.class, SmileHttpMessageConverter.class);
+    objectMapper = switch (format) {
+      case "cbor" -> context.getBean(CborHttpMessageConverter.class).getObjectMapper();
+      case "smile" -> context.getBean(SmileHttpMessageConverter.class).getObjectMapper();
+      default -> context.getBean(ObjectMapper.class);
+    };
+    var books = new ArrayList<BookOutputDto>(pageSize);
+    for (int i = 1; i <= pageSize; i++) {
+      books.add(new BookOutputDto((long) i, BenchmarkApplication.title(i),
+          BenchmarkApplication.author(i), BenchmarkApplication.isbn(i)));
+    }
+    page = new PageImpl<>(books, PageRequest.of(3, pageSize), 10_000);
+    body = objectMapper.writeValueAsBytes(page);
+    System.out.printf("%n%s page of %d books: %d bytes%n", format, pageSize, body.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public byte[] serialize() throws Exception {
+    return objectMapper.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public PageBody deserialize() throws Exception {
+    return objectMapper.readValue(body, PageBody.class);
+  }
+
+  public record PageBody(List<BookOutputDto> content, long totalElements) {
+  }
+}
@@ -0,0 +1,74 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
+import com.mnishimori.library.domain.service.BookKeysetPage;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Latency of a deep page of GET /api/books in offset mode (Page with count query) and in keyset
+ * mode (seek after the cursor of the previous page).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookPaginationBenchmark {
+
+  private static final int SIZE = 20;
+
+  @Param({"100000"})
+  public int rows;
+
+  @Param({"1000"})
+  public int page;
+
+  private ConfigurableApplicationContext context;
+  private BookService service;
+  private BookKeyset keyset;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("library.search.index.enabled=false");
+    BenchmarkApplication.seedBooks(context.getBean(JdbcTemplate.class), rows);
+    service = context.getBean(BookService.class);
+    // seeded ids are 1..rows, so the last id of the previous page is page * SIZE
+    keyset = new BookKeyset("id", Sort.Direction.ASC, null, (long) page * SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Page<Book> offset() {
+    return service.find(new Book(), PageRequest.of(page, SIZE, Sort.by("id")));
+  }
+
+  @Benchmark
+  public BookKeysetPage keyset() {
+    return service.find(new Book(), keyset, SIZE);
+  }
+}
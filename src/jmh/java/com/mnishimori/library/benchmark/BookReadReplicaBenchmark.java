@@ -0,0 +1,128 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Book reads from many threads as replicas are added. Every database, primary or replica, is an
+ * in-memory H2 with a pool of {@code connections}, standing in for a server of fixed capacity;
+ * with no replicas all reads go to the primary.
+ *
+ * <p>Reads go through the service with every cache on: the second-level cache for
+ * {@code findById}, the ISBN cache for {@code findByIsbn} and the search cache for {@code find}.
+ * Keys are drawn at random from sets larger than the caches, so there is a mix of hits and of
+ * misses that reach a database. Nothing is written, so the caches keep what is read from the
+ * replicas once the read-your-writes window since startup has passed, within the warmup.
+ *
+ * <p>The in-memory databases share the benchmark's CPUs, so the replicas only add capacity when
+ * there are spare cores. On a single core a run cannot show read scaling: the scores for the
+ * replica counts differ by noise, not capacity. Compare them on a machine with at least as many
+ * cores as threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class BookReadReplicaBenchmark {
+
+  @Param({"100000"})
+  public int rows;
+
+  @Param({"0", "1", "2"})
+  public int replicas;
+
+  @Param({"2"})
+  public int connections;
+
+  private ConfigurableApplicationContext context;
+  private BookService service;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    var properties = new ArrayList<String>();
+    properties.add("library.search.index.enabled=false");
+    properties.add("library.outbox.enabled=false");
+    properties.add("spring.datasource.hikari.maximum-pool-size=" + connections);
+    var urls = new ArrayList<String>();
+    for (int i = 0; i < replicas; i++) {
+      var url = "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+      urls.add(url);
+      properties.add("library.datasource.replicas[" + i + "].jdbc-url=" + url);
+      properties.add("library.datasource.replicas[" + i + "].username=sa");
+      properties.add("library.datasource.replicas[" + i + "].maximum-pool-size=" + connections);
+    }
+    // replicas are created empty, so the schema, indexes included, must exist before anything
+    // reads from them
+    for (var url : urls) {
+      replica(url).execute("create table book (id bigint primary key, author varchar(255), "
+          + "isbn varchar(255), title varchar(255), version bigint not null, "
+          + "constraint uk_book_isbn unique (isbn))");
+      replica(url).execute("create index idx_book_title on book (title, id)");
+      replica(url).execute("create index idx_book_author on book (author, id)");
+      replica(url).execute("create sequence book_seq start with 1 increment by 50");
+    }
+    context = BenchmarkApplication.start(properties.toArray(String[]::new));
+    BenchmarkApplication.seedBooks(context.getBean(JdbcTemplate.class), rows);
+    for (var url : urls) {
+      BenchmarkApplication.seedBooks(replica(url), rows);
+    }
+    service = context.getBean(BookService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Optional<Book> findById() {
+    return service.findById(ThreadLocalRandom.current().nextLong(rows) + 1);
+  }
+
+  @Benchmark
+  public Optional<Book> findByIsbn() {
+    var isbn = BenchmarkApplication.isbn(ThreadLocalRandom.current().nextInt(rows) + 1);
+    return service.findByIsbn(isbn);
+  }
+
+  @Benchmark
+  public Page<Book> find() {
+    var random = ThreadLocalRandom.current();
+    var probe = Book.builder()
+        .title(BenchmarkApplication.WORDS[random.nextInt(BenchmarkApplication.WORDS.length)])
+        .author(BenchmarkApplication.AUTHORS[random.nextInt(BenchmarkApplication.AUTHORS.length)])
+        .build();
+    return service.find(probe, PageRequest.of(random.nextInt(10), 20));
+  }
+
+  private static JdbcTemplate replica(String url) {
+    return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+  }
+}
@@ -0,0 +1,76 @@
+package com.mnishimori.library.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * GET /api/books/{bookId} through the dispatcher servlet for a hot set of books, with and without
+ * the encoded response cache. Run with {@code -prof gc} for the allocation per request; the mock
+ * request and response cost the same in both cases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookResponseBenchmark {
+
+  @Param({"10000"})
+  public int rows;
+
+  @Param({"1000"})
+  public int hotSet;
+
+  @Param({"false", "true"})
+  public boolean cached;
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mvc;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.startWeb("library.search.index.enabled=false",
+        "library.cache.book-response.enabled=" + cached);
+    BenchmarkApplication.seedBooks(context.getBean(JdbcTemplate.class), rows);
+    mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public byte[] getById() throws Exception {
+    var response = mvc.perform(get("/api/books/{bookId}", next++ % hotSet + 1)
+            .accept(MediaType.APPLICATION_JSON))
+        .andReturn()
+        .getResponse();
+    if (response.getStatus() != 200) {
+      throw new IllegalStateException("GET answered " + response.getStatus());
+    }
+    return response.getContentAsByteArray();
+  }
+}
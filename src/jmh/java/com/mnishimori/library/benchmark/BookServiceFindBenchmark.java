@@ -0,0 +1,99 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.cache.BookSearchCache;
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.search.BookSearchIndex;
+import com.mnishimori.library.domain.search.BookSearchIndexLoader;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * BookServiceImpl.find for a title fragment, answered by the query-by-example LIKE scan or by the
+ * trigram search index, with or without the search result cache in front of them. Run the
+ * million-book comparison with {@code -p rows=1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class BookServiceFindBenchmark {
+
+  @Param({"100000"})
+  public int rows;
+
+  @Param({"example", "index"})
+  public String path;
+
+  @Param({"false", "true"})
+  public boolean cached;
+
+  private ConfigurableApplicationContext context;
+  private BookService service;
+  private BookSearchCache searchCache;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InterruptedException {
+    var indexed = "index".equals(path);
+    context = BenchmarkApplication.start("library.search.index.enabled=" + indexed);
+    var index = context.getBean(BookSearchIndex.class);
+    while (indexed && !index.isReady()) {
+      Thread.sleep(10);
+    }
+    BenchmarkApplication.seedBooks(context.getBean(JdbcTemplate.class), rows);
+    if (indexed) {
+      context.getBean(BookSearchIndexLoader.class).load();
+    }
+    service = context.getBean(BookService.class);
+    searchCache = context.getBean(BookSearchCache.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Page<Book> findByTitleFragment() {
+    var word = BenchmarkApplication.WORDS[next++ % BenchmarkApplication.WORDS.length];
+    var probe = Book.builder().title(word.substring(1, word.length() - 1)).build();
+    return find(probe);
+  }
+
+  @Benchmark
+  public Page<Book> findByTitleAndAuthor() {
+    var i = next++;
+    var probe = Book.builder()
+        .title(BenchmarkApplication.WORDS[i % BenchmarkApplication.WORDS.length])
+        .author(BenchmarkApplication.AUTHORS[i % BenchmarkApplication.AUTHORS.length]
+            .toLowerCase())
+        .build();
+    return find(probe);
+  }
+
+  private Page<Book> find(Book probe) {
+    if (!cached) {
+      searchCache.invalidateAll();
+    }
+    return service.find(probe, PageRequest.of(0, 20));
+  }
+}
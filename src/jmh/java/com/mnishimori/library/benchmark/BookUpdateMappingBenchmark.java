@@ -0,0 +1,68 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.presentation.dto.BookInputDto;
+import com.mnishimori.library.presentation.dto.BookMapper;
+import com.mnishimori.library.presentation.dto.BookPatchDto;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The mapping step of PUT and PATCH /api/books/{bookId}: the request body copied onto the
+ * loaded book, by the ModelMapper the update used to go through and by the hand-written mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookUpdateMappingBenchmark {
+
+  private ModelMapper modelMapper;
+  private BookInputDto input;
+  private BookPatchDto patch;
+
+  @Setup
+  public void setUp() {
+    modelMapper = new ModelMapper();
+    input = new BookInputDto("Novo título", "Novo autor", "9780000000002");
+    patch = new BookPatchDto("Novo título", null, null);
+  }
+
+  @Benchmark
+  public Book modelMapper() {
+    var book = loadedBook();
+    modelMapper.map(input, book);
+    return book;
+  }
+
+  @Benchmark
+  public Book copy() {
+    var book = loadedBook();
+    BookMapper.copy(input, book);
+    return book;
+  }
+
+  @Benchmark
+  public Book patch() {
+    var book = loadedBook();
+    BookMapper.patch(patch, book);
+    return book;
+  }
+
+  private static Book loadedBook() {
+    return Book.builder().id(1L).title("As aventuras").author("Artur")
+        .isbn("9780000000001").build();
+  }
+}
@@ -0,0 +1,81 @@
+package com.mnishimori.library.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Throughput of requests that end in a 4xx through the dispatcher servlet: an unknown book, an
+ * invalid body, an invalid cursor and a path variable of the wrong type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 15, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+  @Param({"notFound", "invalidBody", "invalidCursor", "typeMismatch"})
+  public String error;
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mvc;
+  private RequestBuilder request;
+  private int expectedStatus;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.startWeb("library.search.index.enabled=false");
+    BenchmarkApplication.seedBooks(context.getBean(JdbcTemplate.class), 1000);
+    mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    expectedStatus = 400;
+    request = switch (error) {
+      case "notFound" -> {
+        expectedStatus = 404;
+        yield get("/api/books/{bookId}", 1_000_000).accept(MediaType.APPLICATION_JSON);
+      }
+      case "invalidBody" -> post("/api/books").contentType(MediaType.APPLICATION_JSON)
+          .accept(MediaType.APPLICATION_JSON).content("{\"title\":\"\",\"author\":\"\"}");
+      case "invalidCursor" -> get("/api/books").param("after", "@@@")
+          .accept(MediaType.APPLICATION_JSON);
+      case "typeMismatch" -> get("/api/books/abc").accept(MediaType.APPLICATION_JSON);
+      default -> throw new IllegalArgumentException(error);
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public byte[] request() throws Exception {
+    var response = mvc.perform(request).andReturn().getResponse();
+    if (response.getStatus() != expectedStatus) {
+      throw new IllegalStateException(error + " answered " + response.getStatus());
+    }
+    return response.getContentAsByteArray();
+  }
+}
@@ -0,0 +1,81 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.Loan;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+/**
+ * Active-loan check over a loan table with millions of returned loans: the index-only existence
+ * query against fetching the loan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class LoanRepositoryBenchmark {
+
+  private static final int BOOKS = 10_000;
+
+  @Param({"2000000"})
+  public int loans;
+
+  private ConfigurableApplicationContext context;
+  private LoanRepository repository;
+  private EntityManager entityManager;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("library.search.index.enabled=false");
+    var jdbc = context.getBean(JdbcTemplate.class);
+    BenchmarkApplication.seedBooks(jdbc, BOOKS);
+    BenchmarkApplication.seedLoans(jdbc, BOOKS, loans, BOOKS / 2);
+    repository = context.getBean(LoanRepository.class);
+    entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+        context.getBean(EntityManagerFactory.class));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public boolean existsActiveLoan() {
+    return repository.existsByBookAndReturned(nextBook(), false);
+  }
+
+  @Benchmark
+  public boolean findActiveLoan() {
+    return !entityManager.createQuery(
+            "select l from Loan l where l.book = :book and l.returned = false", Loan.class)
+        .setParameter("book", nextBook())
+        .getResultList()
+        .isEmpty();
+  }
+
+  private Book nextBook() {
+    return Book.builder().id((long) (next++ % BOOKS) + 1).build();
+  }
+}
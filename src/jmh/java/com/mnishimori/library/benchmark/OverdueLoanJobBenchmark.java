@@ -0,0 +1,84 @@
+package com.mnishimori.library.benchmark;
+
+import com.mnishimori.library.domain.job.OverdueLoanJob;
+import com.mnishimori.library.domain.job.OverdueLoanScanResult;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One run of the overdue loan job over a table of active loans, most of them late. Every run is
+ * a day later than the previous one, so each of them rewrites the fines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class OverdueLoanJobBenchmark {
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"500000"})
+  public int loans;
+
+  @Param({"1", "4"})
+  public int parallelism;
+
+  private ConfigurableApplicationContext context;
+  private OverdueLoanJob job;
+  private LocalDate day;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkApplication.start("library.search.index.enabled=false",
+        "library.outbox.enabled=false", "library.loans.overdue.parallelism=" + parallelism);
+    var jdbc = context.getBean(JdbcTemplate.class);
+    BenchmarkApplication.seedBooks(jdbc, loans);
+    seedActiveLoans(jdbc);
+    job = context.getBean(OverdueLoanJob.class);
+    day = LocalDate.now();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public OverdueLoanScanResult run() {
+    day = day.plusDays(1);
+    return job.run(day);
+  }
+
+  private void seedActiveLoans(JdbcTemplate jdbc) {
+    var sql = "insert into loan (id, customer, book_id, loan_date, returned, active_book_id) "
+        + "values (?, ?, ?, ?, false, ?)";
+    var today = LocalDate.now();
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    for (long id = 1; id <= loans; id++) {
+      batch.add(new Object[]{id, "Cliente " + id, id, today.minusDays(id % 60), id});
+      if (batch.size() == BATCH_SIZE) {
+        jdbc.batchUpdate(sql, batch);
+        batch.clear();
+      }
+    }
+    jdbc.batchUpdate(sql, batch);
+  }
+}
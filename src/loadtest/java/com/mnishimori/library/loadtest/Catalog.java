@@ -0,0 +1,85 @@
+package com.mnishimori.library.loadtest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The seeded books and the ids handed out to the operations.
+ */
+final class Catalog {
+
+  static final String[] WORDS = {"aventuras", "mistério", "viagem", "jardim", "segredo",
+      "cidade", "oceano", "montanha", "história", "amor", "guerra", "noite", "rio", "sombra",
+      "estrela", "tempo", "caminho", "livro", "vento", "fogo", "memória", "ilha", "deserto",
+      "floresta", "castelo", "reino", "sonho", "verão", "inverno", "luz", "espelho", "porto"};
+  static final String[] AUTHORS = {"Artur", "Maria Silva", "João Souza", "Ana Costa",
+      "Pedro Lima", "Clara Nunes", "Rafael Alves", "Beatriz Rocha", "Lucas Martins"};
+
+  private static final int BATCH_SIZE = 1000;
+  private static final String INSERT_BOOK =
+      "insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, 0)";
+
+  private final String baseUrl;
+  private final long books;
+  private final AtomicLong created = new AtomicLong();
+  private final AtomicLong loaned = new AtomicLong();
+  private final AtomicLong deleted = new AtomicLong();
+
+  Catalog(String baseUrl, long books) {
+    this.baseUrl = baseUrl;
+    this.books = books;
+  }
+
+  static String title(long i) {
+    return WORDS[(int) (i % WORDS.length)] + " " + WORDS[(int) (i / WORDS.length % WORDS.length)]
+        + " " + i;
+  }
+
+  static String author(long i) {
+    return AUTHORS[(int) (i % AUTHORS.length)];
+  }
+
+  static String isbn(long i) {
+    return String.format("978%010d", i);
+  }
+
+  void seed(JdbcTemplate jdbc) {
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    for (long i = 1; i <= books; i++) {
+      batch.add(new Object[]{i, title(i), author(i), isbn(i)});
+      if (batch.size() == BATCH_SIZE || i == books) {
+        insert(jdbc, batch);
+      }
+    }
+    jdbc.execute("alter sequence book_seq restart with " + (books + 51));
+  }
+
+  URI uri(String path) {
+    return URI.create(baseUrl + path);
+  }
+
+  long nextCreated() {
+    return created.incrementAndGet();
+  }
+
+  long nextLoaned() {
+    return loaned.incrementAndGet();
+  }
+
+  long nextDeleted() {
+    return books - deleted.getAndIncrement();
+  }
+
+  long anyLive(Random random) {
+    return 1 + random.nextLong(Math.max(1, books - deleted.get()));
+  }
+
+  private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+    jdbc.batchUpdate(INSERT_BOOK, batch);
+    batch.clear();
+  }
+}
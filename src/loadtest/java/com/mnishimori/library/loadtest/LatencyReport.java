@@ -0,0 +1,64 @@
+package com.mnishimori.library.loadtest;
+
+import com.mnishimori.library.loadtest.LoadGenerator.Stats;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Writes one HdrHistogram percentile distribution per operation ({@code <operation>.hgrm}, in
+ * milliseconds, plottable with the HdrHistogram plotter) and a summary of all of them.
+ */
+final class LatencyReport {
+
+  private static final double MICROS_PER_MILLI = 1000.0;
+
+  private LatencyReport() {
+  }
+
+  static void write(Map<Operation, Stats> stats, LoadTestOptions options) throws IOException {
+    var directory = options.report();
+    Files.createDirectories(directory);
+    for (var entry : stats.entrySet()) {
+      var name = entry.getKey().name().toLowerCase();
+      writeDistribution(directory.resolve(name + ".hgrm"), entry.getValue().responseTime);
+      writeDistribution(directory.resolve(name + "-service.hgrm"), entry.getValue().serviceTime);
+    }
+    try (var summary = new PrintStream(directory.resolve("summary.txt").toFile())) {
+      summarize(stats, options, summary);
+    }
+    summarize(stats, options, System.out);
+  }
+
+  private static void writeDistribution(Path file, Histogram histogram)
+      throws IOException {
+    try (var out = new PrintStream(file.toFile())) {
+      histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+    }
+  }
+
+  private static void summarize(Map<Operation, Stats> stats, LoadTestOptions options,
+      PrintStream out) {
+    var seconds = options.duration().toMillis() / 1000.0;
+    out.printf("rate=%d/s duration=%s warmup=%s mix=%s books=%d%n", options.rate(),
+        options.duration(), options.warmup(), options.mix(), options.books());
+    out.printf("response time from the scheduled start, in ms%n");
+    out.printf("%-9s %8s %7s %7s %8s %8s %8s %8s %8s %8s%n", "operation", "count", "errors",
+        "req/s", "p50", "p90", "p99", "p99.9", "max", "svc p99");
+    stats.forEach((operation, stat) -> {
+      var latency = stat.responseTime;
+      out.printf("%-9s %8d %7d %7.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+          operation.name().toLowerCase(), latency.getTotalCount(), stat.errors.sum(),
+          latency.getTotalCount() / seconds, millis(latency, 50), millis(latency, 90),
+          millis(latency, 99), millis(latency, 99.9), latency.getMaxValue() / MICROS_PER_MILLI,
+          millis(stat.serviceTime, 99));
+    });
+  }
+
+  private static double millis(Histogram histogram, double percentile) {
+    return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+  }
+}
@@ -0,0 +1,112 @@
+package com.mnishimori.library.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule, whether or not earlier
+ * ones have completed, and response times are measured from the scheduled start. A stalled
+ * server therefore shows up in the percentiles instead of silently lowering the request rate
+ * (coordinated omission). Service times, measured from the actual send, are kept alongside.
+ */
+final class LoadGenerator {
+
+  private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+  private final Catalog catalog;
+  private final LoadTestOptions options;
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+  private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+  private final Operation[] wheel;
+
+  LoadGenerator(Catalog catalog, LoadTestOptions options) {
+    this.catalog = catalog;
+    this.options = options;
+    var operations = new ArrayList<Operation>();
+    options.mix().forEach((operation, weight) -> {
+      operations.addAll(Collections.nCopies(weight, operation));
+      stats.put(operation, new Stats());
+    });
+    if (operations.isEmpty()) {
+      throw new IllegalArgumentException("The operation mix is empty");
+    }
+    this.wheel = operations.toArray(Operation[]::new);
+  }
+
+  Map<Operation, Stats> run() throws InterruptedException {
+    var random = new Random(options.seed());
+    var interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+    var start = System.nanoTime();
+    var measureFrom = start + options.warmup().toNanos();
+    var end = measureFrom + options.duration().toNanos();
+    var inFlight = new Phaser(1);
+
+    for (long i = 0; ; i++) {
+      var intended = start + i * interval;
+      if (intended >= end) {
+        break;
+      }
+      long delay;
+      while ((delay = intended - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(delay);
+      }
+
+      var operation = wheel[random.nextInt(wheel.length)];
+      var request = operation.request(catalog, random);
+      var measured = intended >= measureFrom;
+      inFlight.register();
+      var sent = System.nanoTime();
+      client.sendAsync(request, BodyHandlers.discarding()).whenComplete((response, error) -> {
+        var now = System.nanoTime();
+        if (measured) {
+          var ok = error == null && response.statusCode() < 400;
+          stats.get(operation).record(now - intended, now - sent, ok);
+        }
+        inFlight.arriveAndDeregister();
+      });
+    }
+
+    try {
+      inFlight.awaitAdvanceInterruptibly(inFlight.arrive(), DRAIN_TIMEOUT.toMillis(),
+          TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      System.err.printf("%d requests still in flight after %s%n",
+          inFlight.getUnarrivedParties(), DRAIN_TIMEOUT);
+    }
+    return stats;
+  }
+
+  /**
+   * Latencies of one operation, in microseconds.
+   */
+  static final class Stats {
+
+    final Histogram responseTime = new ConcurrentHistogram(3);
+    final Histogram serviceTime = new ConcurrentHistogram(3);
+    final LongAdder errors = new LongAdder();
+
+    void record(long responseNanos, long serviceNanos, boolean ok) {
+      responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+      serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+      if (!ok) {
+        errors.increment();
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.mnishimori.library.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, read from {@code key=value} arguments.
+ *
+ * <ul>
+ *   <li>{@code rate}: requests per second, fixed whatever the response times (default 200)
+ *   <li>{@code duration}/{@code warmup}: measured and discarded run time (default 60s/10s)
+ *   <li>{@code mix}: relative weight of each operation, e.g.
+ *       {@code create=10,search=30,get=40,update=10,delete=5,checkout=5}
+ *   <li>{@code books}: books seeded before the run (default 20000)
+ *   <li>{@code seed}: seed of the operation and id choices, for reproducible runs
+ *   <li>{@code report}: directory of the percentile reports (default target/loadtest)
+ * </ul>
+ */
+record LoadTestOptions(int rate, Duration duration, Duration warmup, Map<Operation, Integer> mix,
+                       int books, long seed, Path report) {
+
+  static final String DEFAULT_MIX = "create=10,search=30,get=40,update=10,delete=5,checkout=5";
+
+  static LoadTestOptions parse(String... args) {
+    var values = new HashMap<String, String>();
+    for (var arg : args) {
+      var separator = arg.indexOf('=');
+      if (separator < 1) {
+        throw new IllegalArgumentException("Expected key=value, got: " + arg);
+      }
+      values.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+    return new LoadTestOptions(
+        Integer.parseInt(values.getOrDefault("rate", "200")),
+        Duration.parse("PT" + values.getOrDefault("duration", "60s")),
+        Duration.parse("PT" + values.getOrDefault("warmup", "10s")),
+        parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+        Integer.parseInt(values.getOrDefault("books", "20000")),
+        Long.parseLong(values.getOrDefault("seed", "42")),
+        Path.of(values.getOrDefault("report", "target/loadtest")));
+  }
+
+  private static Map<Operation, Integer> parseMix(String mix) {
+    var weights = new EnumMap<Operation, Integer>(Operation.class);
+    for (var entry : mix.split(",")) {
+      var pair = entry.split("=");
+      weights.put(Operation.valueOf(pair[0].trim().toUpperCase()),
+          Integer.parseInt(pair[1].trim()));
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,56 @@
+package com.mnishimori.library.loadtest;
+
+import com.mnishimori.LibraryApiApplication;
+import com.mnishimori.library.domain.search.BookSearchIndex;
+import com.mnishimori.library.domain.search.BookSearchIndexLoader;
+import java.util.UUID;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Boots the API on a random port over a seeded in-memory H2 database and drives it with the
+ * configured traffic mix. See {@link LoadTestOptions} for the arguments.
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.args="rate=500 duration=120s"
+ * </pre>
+ */
+public final class LoadTestRunner {
+
+  private LoadTestRunner() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var options = LoadTestOptions.parse(args);
+    // devtools would restart the application in a new class loader, without the seeded catalog
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    try (var context = new SpringApplicationBuilder(LibraryApiApplication.class)
+        .bannerMode(Banner.Mode.OFF)
+        .logStartupInfo(false)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1",
+            "logging.level.root=WARN")
+        .run()) {
+      var index = context.getBean(BookSearchIndex.class);
+      while (index.isEnabled() && !index.isReady()) {
+        Thread.sleep(10);
+      }
+      var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      var catalog = new Catalog("http://localhost:" + port, options.books());
+      catalog.seed(context.getBean(JdbcTemplate.class));
+      if (index.isEnabled()) {
+        context.getBean(BookSearchIndexLoader.class).load();
+      }
+
+      System.out.printf("Running %s against %s for %s after a %s warmup%n", options.mix(),
+          catalog.uri("/"),
+          options.duration(), options.warmup());
+      var stats = new LoadGenerator(catalog, options).run();
+      LatencyReport.write(stats, options);
+    }
+  }
+}
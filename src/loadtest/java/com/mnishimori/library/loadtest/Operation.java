@@ -0,0 +1,77 @@
+package com.mnishimori.library.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.Random;
+
+/**
+ * The requests the load test sends. Seeded books are shared out so that operations don't step on
+ * each other: checkouts take ids from the bottom, deletes from the top, and gets and updates pick
+ * at random among the books not deleted yet.
+ */
+enum Operation {
+
+  CREATE {
+    @Override
+    HttpRequest request(Catalog catalog, Random random) {
+      var i = catalog.nextCreated();
+      return json(catalog.uri("/api/books"), "POST",
+          book(Catalog.title(i), Catalog.author(i), "lt-" + i));
+    }
+  },
+  SEARCH {
+    @Override
+    HttpRequest request(Catalog catalog, Random random) {
+      var word = Catalog.WORDS[random.nextInt(Catalog.WORDS.length)];
+      return HttpRequest.newBuilder(catalog.uri("/api/books?page=0&size=20&title=" + word))
+          .GET()
+          .build();
+    }
+  },
+  GET {
+    @Override
+    HttpRequest request(Catalog catalog, Random random) {
+      return HttpRequest.newBuilder(catalog.uri("/api/books/" + catalog.anyLive(random)))
+          .GET()
+          .build();
+    }
+  },
+  UPDATE {
+    @Override
+    HttpRequest request(Catalog catalog, Random random) {
+      var id = catalog.anyLive(random);
+      return json(catalog.uri("/api/books/" + id), "PUT",
+          book(Catalog.title(id + 1), Catalog.author(id + 1), Catalog.isbn(id)));
+    }
+  },
+  DELETE {
+    @Override
+    HttpRequest request(Catalog catalog, Random random) {
+      return HttpRequest.newBuilder(catalog.uri("/api/books/" + catalog.nextDeleted()))
+          .DELETE()
+          .build();
+    }
+  },
+  CHECKOUT {
+    @Override
+    HttpRequest request(Catalog catalog, Random random) {
+      var id = catalog.nextLoaned();
+      return json(catalog.uri("/api/loans"), "POST",
+          "{\"isbn\":\"" + Catalog.isbn(id) + "\",\"customer\":\"Cliente " + id + "\"}");
+    }
+  };
+
+  abstract HttpRequest request(Catalog catalog, Random random);
+
+  private static HttpRequest json(URI uri, String method, String body) {
+    return HttpRequest.newBuilder(uri)
+        .header("Content-Type", "application/json")
+        .method(method, BodyPublishers.ofString(body))
+        .build();
+  }
+
+  private static String book(String title, String author, String isbn) {
+    return "{\"title\":\"" + title + "\",\"author\":\"" + author + "\",\"isbn\":\"" + isbn + "\"}";
+  }
+}
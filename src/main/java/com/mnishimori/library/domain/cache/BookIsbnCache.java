@@ -0,0 +1,160 @@
+package com.mnishimori.library.domain.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mnishimori.library.domain.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded ISBN lookup cache in front of the book repository. Absent ISBNs are cached as well, so
+ * repeated duplicate checks for new books don't reach the database either. Misses may be loaded
+ * from a replica, and are then only kept if the cache wasn't invalidated within the
+ * {@link ReplicaLag}: the replica could still return a book as it was before that invalidation,
+ * and the entry would keep it until it expires. Its size, hits and misses are reported as the
+ * {@code book.isbn} cache.
+ */
+@Component
+public class BookIsbnCache {
+
+  private final ReplicaLag replicaLag;
+  private final Cache<String, Optional<Book>> cache;
+  // reverse index of the entries, so that a book is invalidated without scanning the cache
+  private final Map<Long, String> isbnsByBook = new ConcurrentHashMap<>();
+  private final Set<String> absentIsbns = ConcurrentHashMap.newKeySet();
+  private final AtomicLong invalidations = new AtomicLong();
+  // as if invalidated on startup, since another instance may have changed a book just before
+  private volatile long invalidatedAt = System.nanoTime();
+
+  public BookIsbnCache(ReplicaLag replicaLag, MeterRegistry registry,
+      @Value("${library.cache.isbn.maximum-size:10000}") long maximumSize,
+      @Value("${library.cache.isbn.expire-after-write:10m}") Duration expireAfterWrite) {
+    this.replicaLag = replicaLag;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .evictionListener((String isbn, Optional<Book> entry, RemovalCause cause) ->
+            unindex(isbn, entry))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, "book.isbn");
+  }
+
+  public Optional<Book> get(String isbn, Function<String, Optional<Book>> loader) {
+    if (isbn == null) {
+      return loader.apply(null);
+    }
+    var cached = cache.getIfPresent(isbn);
+    if (cached != null) {
+      return cached.map(BookIsbnCache::copyOf);
+    }
+    // loaded outside of the cache's lock: the loader needs a connection, and the threads holding
+    // the connections may be waiting on that same lock to invalidate an entry
+    var epoch = invalidations.get();
+    var readAt = System.nanoTime();
+    var loaded = loader.apply(isbn);
+    var entry = loaded.map(BookIsbnCache::copyOf);
+    if (invalidations.get() == epoch && replicaLag.covers(invalidatedAt, readAt)) {
+      // indexed before it is stored, so that an invalidation racing with the store finds it
+      index(isbn, entry);
+      var existing = cache.asMap().putIfAbsent(isbn, entry);
+      if (existing != null) {
+        if (!existing.map(Book::getId).equals(entry.map(Book::getId))) {
+          unindex(isbn, entry);
+        }
+      } else if (invalidations.get() != epoch && cache.asMap().remove(isbn, entry)) {
+        // invalidated while being stored, so the loaded book may already be stale
+        unindex(isbn, entry);
+      }
+    }
+    // the caller that loaded the entry gets the repository instance, everyone else a private copy
+    return loaded;
+  }
+
+  public void invalidate(Book book) {
+    invalidated();
+    if (book.getIsbn() != null) {
+      remove(book.getIsbn());
+    }
+    if (book.getId() != null) {
+      // the ISBN of a persisted book may have changed, so drop whatever entry still points to it
+      invalidateBook(book.getId());
+    }
+  }
+
+  /**
+   * Drops the entries of books changed elsewhere, as well as the absent ISBNs, since one of those
+   * books may have taken one of them.
+   */
+  public void invalidateBooks(Collection<Long> bookIds) {
+    invalidated();
+    bookIds.forEach(this::invalidateBook);
+    absentIsbns.forEach(this::remove);
+  }
+
+  public void invalidateAll() {
+    invalidated();
+    cache.invalidateAll();
+    isbnsByBook.clear();
+    absentIsbns.clear();
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private void invalidated() {
+    invalidatedAt = System.nanoTime();
+    invalidations.incrementAndGet();
+  }
+
+  private void invalidateBook(Long bookId) {
+    var isbn = isbnsByBook.get(bookId);
+    if (isbn != null) {
+      remove(isbn);
+    }
+  }
+
+  private void remove(String isbn) {
+    var removed = cache.asMap().remove(isbn);
+    if (removed != null) {
+      unindex(isbn, removed);
+    }
+  }
+
+  private void index(String isbn, Optional<Book> entry) {
+    entry.ifPresentOrElse(book -> {
+      if (book.getId() != null) {
+        isbnsByBook.put(book.getId(), isbn);
+      }
+    }, () -> absentIsbns.add(isbn));
+  }
+
+  private void unindex(String isbn, Optional<Book> entry) {
+    entry.ifPresentOrElse(book -> {
+      if (book.getId() != null) {
+        isbnsByBook.remove(book.getId(), isbn);
+      }
+    }, () -> absentIsbns.remove(isbn));
+  }
+
+  private static Book copyOf(Book book) {
+    return book.toBuilder().build();
+  }
+}
@@ -0,0 +1,125 @@
+package com.mnishimori.library.domain.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mnishimori.library.domain.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Pages of book search results, bounded by an estimate of their size in memory. Any write to the
+ * catalog starts a new epoch, so results computed before it are never served afterwards. Callers
+ * asking for a page that is being computed wait for that computation instead of running the same
+ * query. A page read from a replica is served, but only kept if the epoch started longer than the
+ * {@link ReplicaLag} before, as the replica may not have the writes of the epoch yet. The cache is
+ * reported as {@code book.search}.
+ */
+@Component
+public class BookSearchCache {
+
+  private static final int ENTRY_OVERHEAD = 256;
+  private static final int BOOK_OVERHEAD = 96;
+
+  private final ReplicaLag replicaLag;
+  private final AsyncCache<Key, Page<Book>> cache;
+  private final AtomicLong epoch = new AtomicLong();
+  // as if a new epoch started on startup, since another instance may have just changed a book
+  private volatile long epochStartedAt = System.nanoTime();
+
+  public BookSearchCache(ReplicaLag replicaLag, MeterRegistry registry,
+      @Value("${library.cache.search.maximum-weight:16MB}") DataSize maximumWeight) {
+    this.replicaLag = replicaLag;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maximumWeight.toBytes())
+        .weigher((Key key, Page<Book> page) -> weigh(page))
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(registry, cache, "book.search");
+  }
+
+  public Page<Book> get(Book probe, Pageable pageable, Supplier<Page<Book>> loader) {
+    var key = Key.of(epoch.get(), probe, pageable);
+    var loading = new CompletableFuture<Page<Book>>();
+    // through get rather than the map view, so that hits and misses are recorded
+    var cached = cache.get(key, (k, executor) -> loading);
+    if (cached != loading) {
+      try {
+        return cached.join().map(BookSearchCache::copyOf);
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+    // computed by this caller, outside of the cache's locks
+    try {
+      var readAt = System.nanoTime();
+      var page = loader.get();
+      loading.complete(page.map(BookSearchCache::copyOf));
+      if (!replicaLag.covers(epochStartedAt, readAt)) {
+        // the callers already waiting get the page, later ones read it again
+        cache.asMap().remove(key, loading);
+      }
+      return page;
+    } catch (RuntimeException e) {
+      cache.asMap().remove(key, loading);
+      loading.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  public void invalidateAll() {
+    epochStartedAt = System.nanoTime();
+    epoch.incrementAndGet();
+    cache.synchronous().invalidateAll();
+  }
+
+  public long size() {
+    return cache.synchronous().estimatedSize();
+  }
+
+  public CacheStats stats() {
+    return cache.synchronous().stats();
+  }
+
+  private static int weigh(Page<Book> page) {
+    var weight = ENTRY_OVERHEAD;
+    for (var book : page.getContent()) {
+      weight += BOOK_OVERHEAD + 2 * (length(book.getTitle()) + length(book.getAuthor())
+          + length(book.getIsbn()));
+    }
+    return weight;
+  }
+
+  private static int length(String value) {
+    return value == null ? 0 : value.length();
+  }
+
+  private static Book copyOf(Book book) {
+    return book.toBuilder().build();
+  }
+
+  private record Key(long epoch, String title, String author, String isbn, int page, int size,
+                     Sort sort) {
+
+    static Key of(long epoch, Book probe, Pageable pageable) {
+      return new Key(epoch, fold(probe.getTitle()), fold(probe.getAuthor()),
+          fold(probe.getIsbn()), pageable.isPaged() ? pageable.getPageNumber() : -1,
+          pageable.isPaged() ? pageable.getPageSize() : -1, pageable.getSort());
+    }
+
+    private static String fold(String value) {
+      return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+  }
+}
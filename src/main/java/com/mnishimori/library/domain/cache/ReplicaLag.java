@@ -0,0 +1,24 @@
+package com.mnishimori.library.domain.cache;
+
+import java.time.Duration;
+
+/**
+ * How far behind the latest commits the reads of the current thread may be, zero when they go to
+ * the primary. A cache only keeps what it loaded if its last invalidation is older than that,
+ * since a lagging replica may have returned the data as it was before the change.
+ */
+@FunctionalInterface
+public interface ReplicaLag {
+
+  ReplicaLag NONE = () -> Duration.ZERO;
+
+  Duration current();
+
+  /**
+   * Whether what the current thread read at {@code readAt} reflects a change the cache learned
+   * about at {@code changedAt}, both {@link System#nanoTime()}.
+   */
+  default boolean covers(long changedAt, long readAt) {
+    return readAt - changedAt >= current().toNanos();
+  }
+}
@@ -0,0 +1,8 @@
+package com.mnishimori.library.domain.event;
+
+/**
+ * Published by the book service after a book is created, changed or removed.
+ */
+public record BookChangedEvent(Long bookId) {
+
+}
@@ -0,0 +1,11 @@
+package com.mnishimori.library.domain.event;
+
+import java.util.Set;
+
+/**
+ * Published when another instance reports changes to books, so that local copies of them must be
+ * dropped. Unlike {@link BookChangedEvent} it is published outside of any transaction.
+ */
+public record BooksInvalidatedEvent(Set<Long> bookIds) {
+
+}
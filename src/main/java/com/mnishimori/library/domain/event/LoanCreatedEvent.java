@@ -0,0 +1,11 @@
+package com.mnishimori.library.domain.event;
+
+import java.time.LocalDate;
+
+/**
+ * Published by the loan service when a book is lent.
+ */
+public record LoanCreatedEvent(Long loanId, Long bookId, String author, String customer,
+    LocalDate loanDate) {
+
+}
@@ -0,0 +1,260 @@
+package com.mnishimori.library.domain.job;
+
+import com.mnishimori.library.domain.model.JobCheckpoint;
+import com.mnishimori.library.domain.repository.JobCheckpointRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Computes the fine of every loan that was not returned in time. Active loans are read in
+ * ranges of ids, each range is processed in its own transaction on a bounded pool, and the
+ * checkpoint only moves past a range once every range before it is done, so a job that died
+ * resumes without skipping loans. Ranges may be processed twice, which is harmless because the
+ * fine only depends on the loan date and the day of the run.
+ *
+ * <p>Every instance schedules the job, so the checkpoint row doubles as a lease: an instance
+ * claims it before scanning and renews it with every checkpoint, and the others skip their run
+ * while the lease holds. A run that died keeps the lease until it expires, after which any
+ * instance takes over from the checkpoint.
+ */
+@Slf4j
+@Component
+public class OverdueLoanJob {
+
+  static final String NAME = "overdue-loans";
+
+  private static final String ACTIVE_ID_RANGE =
+      "select min(id), max(id) from loan where returned = false and id > ?";
+  private static final String ACTIVE_LOANS =
+      "select id, loan_date, fine from loan where id > ? and id <= ? and returned = false";
+  private static final String UPDATE_FINE = "update loan set fine = ? where id = ?";
+
+  private final JdbcTemplate jdbc;
+  private final TransactionOperations transactions;
+  private final JobCheckpointRepository checkpoints;
+  private final int loanDays;
+  private final BigDecimal dailyFine;
+  private final int chunkSize;
+  private final int parallelism;
+  private final Duration lease;
+  private final String owner = UUID.randomUUID().toString();
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  public OverdueLoanJob(JdbcTemplate jdbc, TransactionOperations transactions,
+      JobCheckpointRepository checkpoints,
+      @Value("${library.loans.overdue.loan-days:14}") int loanDays,
+      @Value("${library.loans.overdue.daily-fine:0.50}") BigDecimal dailyFine,
+      @Value("${library.loans.overdue.chunk-size:1000}") int chunkSize,
+      @Value("${library.loans.overdue.parallelism:4}") int parallelism,
+      @Value("${library.loans.overdue.lease:5m}") Duration lease) {
+    this.jdbc = jdbc;
+    this.transactions = transactions;
+    this.checkpoints = checkpoints;
+    this.loanDays = loanDays;
+    this.dailyFine = dailyFine;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.lease = lease;
+  }
+
+  @Scheduled(cron = "${library.loans.overdue.cron:0 0 3 * * *}")
+  public void runScheduled() {
+    var today = LocalDate.now();
+    if (tryRun(today).isEmpty()) {
+      log.info("Skipping the overdue loan job of {}, it is already running", today);
+    }
+  }
+
+  public OverdueLoanScanResult run(LocalDate today) {
+    return tryRun(today)
+        .orElseThrow(() -> new IllegalStateException("The overdue loan job is already running"));
+  }
+
+  private Optional<OverdueLoanScanResult> tryRun(LocalDate today) {
+    if (!running.compareAndSet(false, true)) {
+      return Optional.empty();
+    }
+    try {
+      return claim(today).map(checkpoint -> scan(checkpoint, today));
+    } finally {
+      running.set(false);
+    }
+  }
+
+  /**
+   * Takes the checkpoint for this instance unless another one holds an unexpired lease on it.
+   * Concurrent claims conflict on the version of the row, or on its key when there is none yet,
+   * and only one of them succeeds.
+   */
+  private Optional<JobCheckpoint> claim(LocalDate today) {
+    var now = Instant.now();
+    try {
+      // read-write, so that the checkpoint comes from the primary even when reads are replicated
+      return transactions.execute(status -> {
+        var checkpoint = checkpoints.findById(NAME)
+            .orElseGet(() -> JobCheckpoint.builder().job(NAME).build());
+        if (checkpoint.getOwner() != null && !checkpoint.getOwner().equals(owner)
+            && checkpoint.getLeaseUntil().isAfter(now)) {
+          return Optional.empty();
+        }
+        if (!today.equals(checkpoint.getRunDate()) || checkpoint.getFinished()) {
+          checkpoint.setRunDate(today);
+          checkpoint.setLastId(0L);
+          checkpoint.setFinished(false);
+        }
+        checkpoint.setOwner(owner);
+        checkpoint.setLeaseUntil(now.plus(lease));
+        checkpoint.setUpdatedAt(now);
+        return Optional.of(checkpoints.saveAndFlush(checkpoint));
+      });
+    } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+      return Optional.empty();
+    }
+  }
+
+  private OverdueLoanScanResult scan(JobCheckpoint checkpoint, LocalDate today) {
+    var start = System.nanoTime();
+    if (checkpoint.getLastId() > 0) {
+      log.info("Resuming the overdue loan job of {} after loan {}", today,
+          checkpoint.getLastId());
+    }
+
+    var bounds = jdbc.queryForObject(ACTIVE_ID_RANGE,
+        (rs, row) -> new long[] {rs.getLong(1), rs.getLong(2)}, checkpoint.getLastId());
+    var first = Math.max(checkpoint.getLastId(), bounds[0] - 1);
+    var last = bounds[1];
+
+    var totals = new ChunkResult(0, 0, 0);
+    var chunks = 0;
+    var executor = Executors.newFixedThreadPool(parallelism,
+        new CustomizableThreadFactory("overdue-loans-"));
+    // ranges complete in submission order from the checkpoint's point of view, and at most two
+    // per thread are queued so the job never holds more than that many ranges in memory
+    var pending = new ArrayDeque<Chunk>();
+    try {
+      for (long lower = first; lower < last; lower += chunkSize) {
+        if (pending.size() == parallelism * 2) {
+          totals = totals.plus(complete(pending.poll(), checkpoint));
+        }
+        var from = lower;
+        var to = Math.min(lower + chunkSize, last);
+        pending.add(new Chunk(to, executor.submit(() -> process(from, to, today))));
+        chunks++;
+        while (!pending.isEmpty() && pending.peek().result().isDone()) {
+          totals = totals.plus(complete(pending.poll(), checkpoint));
+        }
+      }
+      while (!pending.isEmpty()) {
+        totals = totals.plus(complete(pending.poll(), checkpoint));
+      }
+      checkpoint.setFinished(true);
+      checkpoint.setOwner(null);
+      checkpoint.setLeaseUntil(null);
+      save(checkpoint);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    var result = new OverdueLoanScanResult(totals.scanned(), totals.overdue(), totals.updated(),
+        chunks, Duration.ofNanos(System.nanoTime() - start));
+    log.info("Overdue loan job of {} scanned {} active loans in {} chunks, {} overdue and {} "
+            + "fines updated in {} ms ({} rows/s)", today, result.scanned(), result.chunks(),
+        result.overdue(), result.updated(), result.elapsed().toMillis(),
+        String.format("%.0f", result.rowsPerSecond()));
+    return result;
+  }
+
+  private ChunkResult complete(Chunk chunk, JobCheckpoint checkpoint) {
+    ChunkResult result;
+    try {
+      result = chunk.result().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("The overdue loan job was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(
+          "The overdue loan job failed after loan " + checkpoint.getLastId(), e.getCause());
+    }
+    checkpoint.setLastId(chunk.upperId());
+    save(checkpoint);
+    return result;
+  }
+
+  private ChunkResult process(long fromId, long toId, LocalDate today) {
+    return transactions.execute(status -> {
+      var updates = new ArrayList<Object[]>();
+      var counts = new long[2];
+      RowCallbackHandler handler = rs -> {
+        counts[0]++;
+        var fine = fine(rs.getObject(2, LocalDate.class), today);
+        if (fine.signum() > 0) {
+          counts[1]++;
+          var current = rs.getBigDecimal(3);
+          if (current == null || current.compareTo(fine) != 0) {
+            updates.add(new Object[] {fine, rs.getLong(1)});
+          }
+        }
+      };
+      jdbc.query(ACTIVE_LOANS, handler, fromId, toId);
+      if (!updates.isEmpty()) {
+        jdbc.batchUpdate(UPDATE_FINE, updates);
+      }
+      return new ChunkResult(counts[0], counts[1], updates.size());
+    });
+  }
+
+  BigDecimal fine(LocalDate loanDate, LocalDate today) {
+    if (loanDate == null) {
+      return BigDecimal.ZERO;
+    }
+    var daysLate = ChronoUnit.DAYS.between(loanDate, today) - loanDays;
+    return daysLate > 0 ? dailyFine.multiply(BigDecimal.valueOf(daysLate)) : BigDecimal.ZERO;
+  }
+
+  private void save(JobCheckpoint checkpoint) {
+    var now = Instant.now();
+    checkpoint.setUpdatedAt(now);
+    if (checkpoint.getOwner() != null) {
+      checkpoint.setLeaseUntil(now.plus(lease));
+    }
+    try {
+      // the saved copy has the new version, which the next save is checked against
+      checkpoint.setVersion(checkpoints.save(checkpoint).getVersion());
+    } catch (OptimisticLockingFailureException e) {
+      throw new IllegalStateException("The overdue loan job was taken over by another instance "
+          + "after loan " + checkpoint.getLastId(), e);
+    }
+  }
+
+  private record Chunk(long upperId, Future<ChunkResult> result) {
+  }
+
+  private record ChunkResult(long scanned, long overdue, long updated) {
+
+    ChunkResult plus(ChunkResult other) {
+      return new ChunkResult(scanned + other.scanned, overdue + other.overdue,
+          updated + other.updated);
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.mnishimori.library.domain.job;
+
+import java.time.Duration;
+
+public record OverdueLoanScanResult(long scanned, long overdue, long updated, int chunks,
+    Duration elapsed) {
+
+  public double rowsPerSecond() {
+    var seconds = elapsed.toNanos() / 1e9;
+    return seconds == 0 ? 0 : scanned / seconds;
+  }
+}
@@ -0,0 +1,25 @@
+package com.mnishimori.library.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_borrow_stats", indexes = @Index(name = "idx_book_borrow_stats_loans", columnList = "loans"))
+public class BookBorrowStats {
+
+  @Id
+  private Long bookId;
+  @Column(nullable = false)
+  private Long loans;
+}
@@ -0,0 +1,42 @@
+package com.mnishimori.library.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.Instant;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How far a batch job got: every row up to {@code lastId} was processed for the run of
+ * {@code runDate}, so a job that died can resume from there. The instance running the job owns
+ * the row until {@code leaseUntil}, and the version makes concurrent claims conflict.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_checkpoint")
+public class JobCheckpoint {
+
+  @Id
+  private String job;
+  @Column(nullable = false)
+  private LocalDate runDate;
+  @Column(nullable = false)
+  private Long lastId;
+  @Column(nullable = false)
+  private Boolean finished;
+  @Column(nullable = false)
+  private Instant updatedAt;
+  private String owner;
+  private Instant leaseUntil;
+  @Version
+  private Long version;
+}
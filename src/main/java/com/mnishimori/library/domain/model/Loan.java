@@ -1,5 +1,22 @@
 package com.mnishimori.library.domain.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,12 +27,37 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Entity
+@Table(
+    indexes = @Index(name = "idx_loan_book_returned", columnList = "book_id, returned"),
+    uniqueConstraints = @UniqueConstraint(name = "uk_loan_active_book",
+        columnNames = "active_book_id"))
 public class Loan {
 
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+  @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
   private Long id;
   private String customer;
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "book_id", nullable = false, foreignKey = @ForeignKey(name = "fk_loan_book"))
   private Book book;
   private LocalDate loanDate;
-  private Boolean returned;
+  @Builder.Default
+  @Column(nullable = false)
+  private Boolean returned = false;
+  @Column(precision = 10, scale = 2)
+  private BigDecimal fine;
+  @JsonIgnore
+  @Column(name = "active_book_id")
+  private Long activeBookId;
+
+  @PrePersist
+  @PreUpdate
+  void syncActiveBook() {
+    // only loans that were not returned hold the book, so at most one of them can exist per book
+    // a loan without a book is left to the NOT NULL constraint of book_id
+    activeBookId = Boolean.TRUE.equals(returned) || book == null ? null : book.getId();
+  }
 
 }
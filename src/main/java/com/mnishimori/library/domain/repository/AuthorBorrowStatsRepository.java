@@ -0,0 +1,11 @@
+package com.mnishimori.library.domain.repository;
+
+import com.mnishimori.library.domain.model.AuthorBorrowStats;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AuthorBorrowStatsRepository extends JpaRepository<AuthorBorrowStats, String> {
+
+  List<AuthorBorrowStats> findAllByOrderByLoansDesc(Pageable pageable);
+}
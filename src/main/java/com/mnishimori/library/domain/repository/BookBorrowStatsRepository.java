@@ -0,0 +1,11 @@
+package com.mnishimori.library.domain.repository;
+
+import com.mnishimori.library.domain.model.BookBorrowStats;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BookBorrowStatsRepository extends JpaRepository<BookBorrowStats, Long> {
+
+  List<BookBorrowStats> findAllByOrderByLoansDesc(Pageable pageable);
+}
@@ -0,0 +1,27 @@
+package com.mnishimori.library.domain.repository;
+
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+
+public record BookKeyset(String property, Sort.Direction direction, String value, Long id) {
+
+  public static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "title", "author", "isbn");
+
+  public BookKeyset {
+    if (!SORTABLE_PROPERTIES.contains(property)) {
+      throw new IllegalArgumentException("Property " + property + " cant be used as keyset");
+    }
+  }
+
+  public static BookKeyset first(String property, Sort.Direction direction) {
+    return new BookKeyset(property, direction, null, null);
+  }
+
+  public boolean isFirst() {
+    return id == null;
+  }
+
+  public boolean isIdOnly() {
+    return "id".equals(property);
+  }
+}
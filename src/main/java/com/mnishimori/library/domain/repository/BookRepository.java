@@ -1,13 +1,43 @@
 package com.mnishimori.library.domain.repository;
 
 import com.mnishimori.library.domain.model.Book;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
+  // read-only like the inherited finders, so that it may be served by a replica
+  @Transactional(readOnly = true)
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "book-isbn")})
   Optional<Book> findByIsbn(String isbn);
 
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "book-isbn")})
   boolean existsByIsbn(String isbn);
 
+  @Query("select b.version from Book b where b.id = :id")
+  Optional<Long> findVersionById(@Param("id") Long id);
+
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")})
+  @Query("select b from Book b order by b.id")
+  Stream<Book> streamAll();
+
+  @Query("select b.isbn from Book b where b.isbn in :isbns")
+  Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
 }
@@ -0,0 +1,10 @@
+package com.mnishimori.library.domain.repository;
+
+import com.mnishimori.library.domain.model.Book;
+import java.util.List;
+import org.springframework.data.domain.Example;
+
+public interface BookRepositoryCustom {
+
+  List<Book> findAfter(Example<Book> example, BookKeyset after, int limit);
+}
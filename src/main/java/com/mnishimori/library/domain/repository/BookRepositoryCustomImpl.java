@@ -0,0 +1,71 @@
+package com.mnishimori.library.domain.repository;
+
+import com.mnishimori.library.domain.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Book> findAfter(Example<Book> example, BookKeyset after, int limit) {
+    var cb = entityManager.getCriteriaBuilder();
+    var query = cb.createQuery(Book.class);
+    var root = query.from(Book.class);
+
+    var predicates = new ArrayList<Predicate>();
+    var examplePredicate = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+    if (examplePredicate != null) {
+      predicates.add(examplePredicate);
+    }
+
+    Expression<Long> id = root.get("id");
+    var ascending = after.direction() == Sort.Direction.ASC;
+    if (after.isIdOnly()) {
+      if (!after.isFirst()) {
+        predicates.add(ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id()));
+      }
+      query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+    } else {
+      // the raw column, so that an index on it serves both the seek and the order; titles,
+      // authors and ISBNs are validated as non-empty, so no row has a null key
+      Expression<String> key = root.get(after.property());
+      if (!after.isFirst()) {
+        predicates.add(seek(cb, key, id, after, ascending));
+      }
+      query.orderBy(order(cb, key, ascending), order(cb, id, ascending));
+    }
+
+    query.select(root);
+    if (!predicates.isEmpty()) {
+      // Hibernate fails to render a where clause without predicates
+      query.where(predicates.toArray(Predicate[]::new));
+    }
+    return entityManager.createQuery(query)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  private static Predicate seek(CriteriaBuilder cb, Expression<String> key, Expression<Long> id,
+      BookKeyset after, boolean ascending) {
+    var value = after.value() == null ? "" : after.value();
+    var beyondKey = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+    var beyondId = ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+    return cb.or(beyondKey, cb.and(cb.equal(key, value), beyondId));
+  }
+
+  private static Order order(CriteriaBuilder cb, Expression<?> expression, boolean ascending) {
+    return ascending ? cb.asc(expression) : cb.desc(expression);
+  }
+}
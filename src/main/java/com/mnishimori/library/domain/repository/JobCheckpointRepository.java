@@ -0,0 +1,7 @@
+package com.mnishimori.library.domain.repository;
+
+import com.mnishimori.library.domain.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -0,0 +1,299 @@
+package com.mnishimori.library.domain.search;
+
+import com.mnishimori.library.domain.model.Book;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trigram index over book titles and authors. Every indexed version of a book gets a new ordinal,
+ * so posting lists are append-only and always sorted; replaced or deleted versions are left as
+ * tombstones and skipped when candidates are verified against the indexed text. Once tombstones
+ * make up half of the ordinals, the entries and postings are rebuilt from the live books, so the
+ * index grows with the catalog rather than with the writes to it.
+ *
+ * <p>Matches are only returned in id order. Sorting by text is left to the database, whose
+ * collation decides how case and accents compare.
+ */
+@Component
+public class BookSearchIndex {
+
+  private static final int GRAM = 3;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final boolean enabled;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, Postings> titleGrams = new HashMap<>();
+  private final Map<String, Postings> authorGrams = new HashMap<>();
+  private final Map<Long, Integer> ordinals = new HashMap<>();
+  private Entry[] entries = new Entry[INITIAL_CAPACITY];
+  private int size;
+  private int tombstones;
+
+  private volatile boolean ready;
+  private Set<Long> touchedWhileLoading;
+
+  public BookSearchIndex(@Value("${library.search.index.enabled:true}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void startLoading() {
+    lock.writeLock().lock();
+    try {
+      touchedWhileLoading = new HashSet<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void load(List<Book> books) {
+    lock.writeLock().lock();
+    try {
+      for (var book : books) {
+        if (touchedWhileLoading == null || !touchedWhileLoading.contains(book.getId())) {
+          index(book);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void finishLoading() {
+    lock.writeLock().lock();
+    try {
+      touchedWhileLoading = null;
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void put(Book book) {
+    if (!enabled) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      touch(book.getId());
+      index(book);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(Long id) {
+    if (!enabled) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      touch(id);
+      var ordinal = ordinals.remove(id);
+      if (ordinal != null) {
+        entries[ordinal] = null;
+        tombstones++;
+        compactIfNeeded();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the ids of the books matching the probe, in the requested order, or empty when the
+   * index can't answer the query and the caller has to go to the database.
+   */
+  public Optional<List<Long>> search(Book probe, Sort sort) {
+    var title = normalize(probe.getTitle());
+    var author = normalize(probe.getAuthor());
+    if (!ready || (title == null && author == null) || !isSortable(sort)) {
+      return Optional.empty();
+    }
+    var isbn = normalize(probe.getIsbn());
+
+    var matches = new ArrayList<Entry>();
+    lock.readLock().lock();
+    try {
+      var candidates = rarest(title, author);
+      if (candidates == null) {
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+          addIfMatches(matches, entries[ordinal], title, author, isbn);
+        }
+      } else {
+        for (int i = 0; i < candidates.size; i++) {
+          addIfMatches(matches, entries[candidates.ordinals[i]], title, author, isbn);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    matches.sort(comparator(sort));
+    return Optional.of(matches.stream().map(Entry::id).toList());
+  }
+
+  private void touch(Long id) {
+    if (touchedWhileLoading != null) {
+      touchedWhileLoading.add(id);
+    }
+  }
+
+  private void index(Book book) {
+    var previous = ordinals.get(book.getId());
+    if (previous != null) {
+      entries[previous] = null;
+      tombstones++;
+    }
+    append(new Entry(book));
+    compactIfNeeded();
+  }
+
+  private void append(Entry entry) {
+    if (size == entries.length) {
+      entries = Arrays.copyOf(entries, size * 2);
+    }
+    var ordinal = size++;
+    entries[ordinal] = entry;
+    ordinals.put(entry.id(), ordinal);
+    addGrams(titleGrams, entry.normalizedTitle(), ordinal);
+    addGrams(authorGrams, entry.normalizedAuthor(), ordinal);
+  }
+
+  private void compactIfNeeded() {
+    if (tombstones < INITIAL_CAPACITY / 2 || tombstones * 2 < size) {
+      return;
+    }
+    // live entries keep their relative order, so the rebuilt posting lists are sorted too
+    var live = entries;
+    var liveSize = size;
+    entries = new Entry[Math.max(INITIAL_CAPACITY, (liveSize - tombstones) * 2)];
+    size = 0;
+    tombstones = 0;
+    ordinals.clear();
+    titleGrams.clear();
+    authorGrams.clear();
+    for (int ordinal = 0; ordinal < liveSize; ordinal++) {
+      if (live[ordinal] != null) {
+        append(live[ordinal]);
+      }
+    }
+  }
+
+  /**
+   * Ordinals in use, tombstones included.
+   */
+  int allocated() {
+    return size;
+  }
+
+  private static void addGrams(Map<String, Postings> index, String text, int ordinal) {
+    if (text == null) {
+      return;
+    }
+    for (var gram : grams(text)) {
+      index.computeIfAbsent(gram, key -> new Postings()).add(ordinal);
+    }
+  }
+
+  private Postings rarest(String title, String author) {
+    Postings rarest = null;
+    for (var gram : grams(title)) {
+      rarest = rarer(rarest, titleGrams.getOrDefault(gram, Postings.EMPTY));
+    }
+    for (var gram : grams(author)) {
+      rarest = rarer(rarest, authorGrams.getOrDefault(gram, Postings.EMPTY));
+    }
+    return rarest;
+  }
+
+  private static Postings rarer(Postings current, Postings candidate) {
+    return current == null || candidate.size < current.size ? candidate : current;
+  }
+
+  private static void addIfMatches(List<Entry> matches, Entry entry, String title, String author,
+      String isbn) {
+    if (entry != null
+        && contains(entry.normalizedTitle(), title)
+        && contains(entry.normalizedAuthor(), author)
+        && contains(entry.normalizedIsbn(), isbn)) {
+      matches.add(entry);
+    }
+  }
+
+  private static boolean contains(String text, String term) {
+    return term == null || (text != null && text.contains(term));
+  }
+
+  private static Set<String> grams(String text) {
+    if (text == null || text.length() < GRAM) {
+      return Set.of();
+    }
+    var grams = new HashSet<String>();
+    for (int i = 0; i + GRAM <= text.length(); i++) {
+      grams.add(text.substring(i, i + GRAM));
+    }
+    return grams;
+  }
+
+  private static String normalize(String text) {
+    return text == null || text.isEmpty() ? null : text.toLowerCase(Locale.ROOT);
+  }
+
+  private static boolean isSortable(Sort sort) {
+    return sort.stream().allMatch(order -> "id".equals(order.getProperty()));
+  }
+
+  private static Comparator<Entry> comparator(Sort sort) {
+    var byId = Comparator.comparing(Entry::id);
+    var order = sort.getOrderFor("id");
+    return order == null || order.isAscending() ? byId : byId.reversed();
+  }
+
+  private record Entry(Long id, String normalizedTitle, String normalizedAuthor,
+                       String normalizedIsbn) {
+
+    Entry(Book book) {
+      this(book.getId(), normalize(book.getTitle()), normalize(book.getAuthor()),
+          normalize(book.getIsbn()));
+    }
+  }
+
+  private static class Postings {
+
+    static final Postings EMPTY = new Postings();
+
+    int[] ordinals = new int[4];
+    int size;
+
+    void add(int ordinal) {
+      if (size > 0 && ordinals[size - 1] == ordinal) {
+        return;
+      }
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+      }
+      ordinals[size++] = ordinal;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.mnishimori.library.domain.search;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.ArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class BookSearchIndexLoader {
+
+  private static final int BATCH_SIZE = 1000;
+
+  private final BookSearchIndex index;
+  private final BookService bookService;
+
+  public BookSearchIndexLoader(BookSearchIndex index, BookService bookService) {
+    this.index = index;
+    this.bookService = bookService;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!index.isEnabled()) {
+      return;
+    }
+    var loader = new Thread(this::load, "book-search-index-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  public void load() {
+    var start = System.nanoTime();
+    var batch = new ArrayList<Book>(BATCH_SIZE);
+    var total = new long[1];
+    try {
+      index.startLoading();
+      bookService.export(book -> {
+        batch.add(book);
+        if (batch.size() == BATCH_SIZE) {
+          index.load(batch);
+          total[0] += batch.size();
+          batch.clear();
+        }
+      });
+      index.load(batch);
+      total[0] += batch.size();
+      index.finishLoading();
+      log.info("Book search index loaded with {} books in {} ms", total[0],
+          (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException e) {
+      log.error("Could not load the book search index, searches will use the database", e);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.mnishimori.library.domain.service;
+
+import com.mnishimori.library.domain.model.Book;
+
+public record BookImportResult(Book book, String error) {
+
+  public static BookImportResult created(Book book) {
+    return new BookImportResult(book, null);
+  }
+
+  public static BookImportResult failed(Book book, String error) {
+    return new BookImportResult(book, error);
+  }
+
+  public boolean isCreated() {
+    return error == null;
+  }
+}
@@ -0,0 +1,53 @@
+package com.mnishimori.library.domain.service;
+
+import com.mnishimori.library.domain.cache.BookIsbnCache;
+import com.mnishimori.library.domain.cache.BookSearchCache;
+import com.mnishimori.library.domain.event.BooksInvalidatedEvent;
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.search.BookSearchIndex;
+import java.util.HashSet;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Brings the caches and the search index of the book service up to date with the books other
+ * instances changed.
+ */
+@Component
+public class BookInvalidationListener {
+
+  private final BookRepository repository;
+  private final BookIsbnCache isbnCache;
+  private final BookSearchCache searchCache;
+  private final BookSearchIndex searchIndex;
+  private final TransactionOperations transactions;
+
+  public BookInvalidationListener(BookRepository repository, BookIsbnCache isbnCache,
+      BookSearchCache searchCache, BookSearchIndex searchIndex,
+      TransactionOperations transactions) {
+    this.repository = repository;
+    this.isbnCache = isbnCache;
+    this.searchCache = searchCache;
+    this.searchIndex = searchIndex;
+    this.transactions = transactions;
+  }
+
+  @EventListener
+  public void onBooksInvalidated(BooksInvalidatedEvent event) {
+    isbnCache.invalidateBooks(event.bookIds());
+    if (searchIndex.isEnabled()) {
+      var removed = new HashSet<>(event.bookIds());
+      // read-write, so that the books come from the primary even when reads are replicated
+      var books = transactions.execute(status -> repository.findAllById(event.bookIds()));
+      for (Book book : books) {
+        searchIndex.put(book);
+        removed.remove(book.getId());
+      }
+      removed.forEach(searchIndex::remove);
+    }
+    // only once the index is current, a search meanwhile would cache what the index had before
+    searchCache.invalidateAll();
+  }
+}
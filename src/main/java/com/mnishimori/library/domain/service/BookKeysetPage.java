@@ -0,0 +1,12 @@
+package com.mnishimori.library.domain.service;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
+import java.util.List;
+
+public record BookKeysetPage(List<Book> content, BookKeyset next) {
+
+  public boolean hasNext() {
+    return next != null;
+  }
+}
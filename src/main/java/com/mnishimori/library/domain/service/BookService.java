@@ -1,7 +1,10 @@
 package com.mnishimori.library.domain.service;
 
 import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -9,10 +12,14 @@ public interface BookService {
 
   Book save(Book book);
 
+  List<BookImportResult> saveAll(List<Book> books);
+
   Optional<Book> findById(Long id);
 
   Book findByIdRequired(Long id);
 
+  Optional<Long> findVersionById(Long id);
+
   Optional<Book> findByIsbn(String isbn);
 
   Book findByIsbnRequired(String isbn);
@@ -21,6 +28,10 @@ public interface BookService {
 
   Page<Book> find(Book book, Pageable pageable);
 
+  BookKeysetPage find(Book book, BookKeyset after, int size);
+
+  void export(Consumer<Book> consumer);
+
   Book update(Book book);
 
   void delete(Long bookId);
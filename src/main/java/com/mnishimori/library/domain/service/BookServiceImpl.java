@@ -2,29 +2,137 @@ package com.mnishimori.library.domain.service;
 
 import static org.springframework.data.domain.ExampleMatcher.StringMatcher.CONTAINING;
 
+import com.mnishimori.library.domain.cache.BookIsbnCache;
+import com.mnishimori.library.domain.cache.BookSearchCache;
+import com.mnishimori.library.domain.event.BookChangedEvent;
 import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
 import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.search.BookSearchIndex;
 import com.mnishimori.library.exception.BusinessException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+  private static final String UNIQUE_ISBN = "uk_book_isbn";
+  private static final String LOAN_BOOK = "fk_loan_book";
+
   private BookRepository repository;
+  private BookIsbnCache isbnCache;
+  private BookSearchCache searchCache;
+  private BookSearchIndex searchIndex;
+  private ApplicationEventPublisher events;
+  private TransactionOperations transactions;
+
+  @PersistenceContext
+  private EntityManager entityManager;
 
-  public BookServiceImpl(BookRepository repository) {
+  public BookServiceImpl(BookRepository repository, BookIsbnCache isbnCache,
+      BookSearchCache searchCache, BookSearchIndex searchIndex, ApplicationEventPublisher events,
+      TransactionOperations transactions) {
     this.repository = repository;
+    this.isbnCache = isbnCache;
+    this.searchCache = searchCache;
+    this.searchIndex = searchIndex;
+    this.events = events;
+    this.transactions = transactions;
   }
 
   @Override
   public Book save(Book book) {
-    checkIfIsbnAlreadyExists(book);
-    return repository.save(book);
+    try {
+      // the event is written to the outbox in the same transaction as the book
+      var savedBook = transactions.execute(status -> {
+        var saved = repository.saveAndFlush(book);
+        events.publishEvent(new BookChangedEvent(saved.getId()));
+        return saved;
+      });
+      isbnCache.invalidate(book);
+      searchCache.invalidateAll();
+      searchIndex.put(savedBook);
+      return savedBook;
+    } catch (DataIntegrityViolationException e) {
+      isbnCache.invalidate(book);
+      throw duplicateIsbn(e);
+    }
+  }
+
+  @Override
+  public List<BookImportResult> saveAll(List<Book> books) {
+    var isbns = books.stream().map(Book::getIsbn).filter(Objects::nonNull).toList();
+    var existingIsbns = isbns.isEmpty() ? Set.<String>of() : repository.findExistingIsbns(isbns);
+    var chunkIsbns = new HashSet<String>();
+
+    var results = new BookImportResult[books.size()];
+    var candidates = new ArrayList<Book>(books.size());
+    for (int i = 0; i < books.size(); i++) {
+      var book = books.get(i);
+      if (existingIsbns.contains(book.getIsbn()) || !chunkIsbns.add(book.getIsbn())) {
+        results[i] = BookImportResult.failed(book, "ISBN já cadastrado");
+      } else {
+        candidates.add(book);
+      }
+    }
+
+    var inserted = insertAll(candidates).iterator();
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] == null) {
+        results[i] = inserted.next();
+      }
+    }
+    return Arrays.asList(results);
+  }
+
+  private List<BookImportResult> insertAll(List<Book> books) {
+    try {
+      transactions.executeWithoutResult(status -> {
+        repository.saveAll(books);
+        books.forEach(book -> events.publishEvent(new BookChangedEvent(book.getId())));
+      });
+      books.forEach(isbnCache::invalidate);
+      searchCache.invalidateAll();
+      books.forEach(searchIndex::put);
+      return books.stream().map(BookImportResult::created).toList();
+    } catch (DataIntegrityViolationException e) {
+      if (!ConstraintViolations.isViolationOf(e, UNIQUE_ISBN)) {
+        throw e;
+      }
+      // an ISBN was created concurrently after the duplicate check, fall back to one by one
+      var results = new ArrayList<BookImportResult>(books.size());
+      for (var book : books) {
+        book.setId(null);
+        book.setVersion(null);
+        try {
+          results.add(BookImportResult.created(save(book)));
+        } catch (BusinessException ex) {
+          results.add(BookImportResult.failed(book, ex.getMessage()));
+        }
+      }
+      return results;
+    }
   }
 
   public Optional<Book> findById(Long id) {
@@ -36,18 +144,23 @@ public class BookServiceImpl implements BookService {
         .orElseThrow(() -> new BusinessException("Livro não encontrado"));
   }
 
+  @Override
+  public Optional<Long> findVersionById(Long id) {
+    return repository.findVersionById(id);
+  }
+
   @Override
   public Optional<Book> findByIsbn(String isbn) {
-    return repository.findByIsbn(isbn);
+    return isbnCache.get(isbn, repository::findByIsbn);
   }
 
   public Book findByIsbnRequired(String isbn) {
-    return repository.findByIsbn(isbn)
+    return findByIsbn(isbn)
         .orElseThrow(() -> new BusinessException("Livro não encontrado"));
   }
 
   public void checkIfIsbnAlreadyExists(Book book) {
-    var bookFound = repository.findByIsbn(book.getIsbn()).orElse(null);
+    var bookFound = findByIsbn(book.getIsbn()).orElse(null);
     if (bookFound != null && !bookFound.getId().equals(book.getId())) {
       throw new BusinessException("ISBN já cadastrado");
     }
@@ -59,7 +172,20 @@ public class BookServiceImpl implements BookService {
       throw new IllegalArgumentException("Book id cant be null or zero");
     }
     var bookFound = findByIdRequired(book.getId());
-    return repository.save(book);
+    try {
+      var updatedBook = transactions.execute(status -> {
+        var updated = repository.save(book);
+        events.publishEvent(new BookChangedEvent(book.getId()));
+        return updated;
+      });
+      isbnCache.invalidate(bookFound);
+      isbnCache.invalidate(book);
+      searchCache.invalidateAll();
+      searchIndex.put(book);
+      return updatedBook;
+    } catch (DataIntegrityViolationException e) {
+      throw duplicateIsbn(e);
+    }
   }
 
   @Override
@@ -68,15 +194,86 @@ public class BookServiceImpl implements BookService {
       throw new IllegalArgumentException("Book id cant be null or zero");
     }
     var book = findByIdRequired(bookId);
-    repository.delete(book);
+    try {
+      transactions.executeWithoutResult(status -> {
+        repository.delete(book);
+        events.publishEvent(new BookChangedEvent(bookId));
+      });
+    } catch (DataIntegrityViolationException e) {
+      throw ConstraintViolations.isViolationOf(e, LOAN_BOOK)
+          ? new BusinessException("Livro possui empréstimos") : e;
+    }
+    isbnCache.invalidate(book);
+    searchCache.invalidateAll();
+    searchIndex.remove(bookId);
   }
 
   @Override
   public Page<Book> find(Book book, Pageable pageable) {
-    var example = Example.of(book,
+    return searchCache.get(book, pageable, () -> search(book, pageable));
+  }
+
+  private Page<Book> search(Book book, Pageable pageable) {
+    var matches = searchIndex.search(book, pageable.getSort());
+    if (matches.isEmpty()) {
+      return repository.findAll(exampleOf(book), pageable);
+    }
+    var ids = matches.get();
+    if (pageable.isUnpaged()) {
+      return new PageImpl<>(findAllInOrder(ids));
+    }
+    var from = (int) Math.min(pageable.getOffset(), ids.size());
+    var to = Math.min(from + pageable.getPageSize(), ids.size());
+    return new PageImpl<>(findAllInOrder(ids.subList(from, to)), pageable, ids.size());
+  }
+
+  private List<Book> findAllInOrder(List<Long> ids) {
+    var books = repository.findAllById(ids).stream()
+        .collect(Collectors.toMap(Book::getId, Function.identity()));
+    return ids.stream().map(books::get).filter(Objects::nonNull).toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public BookKeysetPage find(Book book, BookKeyset after, int size) {
+    var books = repository.findAfter(exampleOf(book), after, size + 1);
+    if (books.size() <= size) {
+      return new BookKeysetPage(books, null);
+    }
+    var content = books.subList(0, size);
+    var last = content.get(size - 1);
+    var next = new BookKeyset(after.property(), after.direction(), keyOf(last, after), last.getId());
+    return new BookKeysetPage(content, next);
+  }
+
+  private static String keyOf(Book book, BookKeyset keyset) {
+    return switch (keyset.property()) {
+      case "title" -> book.getTitle();
+      case "author" -> book.getAuthor();
+      case "isbn" -> book.getIsbn();
+      default -> null;
+    };
+  }
+
+  private static Example<Book> exampleOf(Book book) {
+    return Example.of(book,
         ExampleMatcher.matching().withIgnoreCase().withIgnoreNullValues().withStringMatcher(
             CONTAINING));
-    return repository.findAll(example, pageable);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public void export(Consumer<Book> consumer) {
+    try (Stream<Book> books = repository.streamAll()) {
+      books.forEach(book -> {
+        consumer.accept(book);
+        entityManager.detach(book);
+      });
+    }
+  }
+
+  private static RuntimeException duplicateIsbn(DataIntegrityViolationException e) {
+    return ConstraintViolations.isViolationOf(e, UNIQUE_ISBN)
+        ? new BusinessException("ISBN já cadastrado") : e;
+  }
 }
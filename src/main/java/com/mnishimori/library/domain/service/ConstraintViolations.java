@@ -0,0 +1,32 @@
+package com.mnishimori.library.domain.service;
+
+import java.util.Locale;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Tells which constraint a failed write violated, so that only the expected one is reported as a
+ * business error and everything else, a NOT NULL or foreign key violation say, stays a failure.
+ */
+final class ConstraintViolations {
+
+  private ConstraintViolations() {
+  }
+
+  static boolean isViolationOf(DataIntegrityViolationException e, String constraint) {
+    var name = constraint.toLowerCase(Locale.ROOT);
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      // the name the dialect extracted, or failing that the driver's message, which names it too
+      var text = cause instanceof ConstraintViolationException violation
+          && violation.getConstraintName() != null
+          ? violation.getConstraintName() : cause.getMessage();
+      if (text != null && text.toLowerCase(Locale.ROOT).contains(name)) {
+        return true;
+      }
+      if (cause.getCause() == cause) {
+        break;
+      }
+    }
+    return false;
+  }
+}
@@ -1,25 +1,58 @@
 package com.mnishimori.library.domain.service;
 
+import com.mnishimori.library.domain.event.LoanCreatedEvent;
 import com.mnishimori.library.domain.model.Book;
 import com.mnishimori.library.domain.model.Loan;
 import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.exception.BusinessException;
+import java.time.LocalDate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+  private static final String ACTIVE_BOOK = "uk_loan_active_book";
+
   private final LoanRepository loanRepository;
+  private final ApplicationEventPublisher events;
+  private final TransactionOperations transactions;
 
-  public LoanServiceImpl(LoanRepository loanRepository) {
+  public LoanServiceImpl(LoanRepository loanRepository, ApplicationEventPublisher events,
+      TransactionOperations transactions) {
     this.loanRepository = loanRepository;
+    this.events = events;
+    this.transactions = transactions;
   }
 
   @Override
   public Loan save(Loan loan) {
-    return loanRepository.save(loan);
+    if (loan.getBook() == null) {
+      throw new BusinessException("Informe o livro do empréstimo");
+    }
+    if (loan.getLoanDate() == null) {
+      loan.setLoanDate(LocalDate.now());
+    }
+    try {
+      // the event is written to the outbox in the same transaction as the loan
+      return transactions.execute(status -> {
+        var saved = loanRepository.saveAndFlush(loan);
+        var book = saved.getBook();
+        events.publishEvent(new LoanCreatedEvent(saved.getId(), book.getId(), book.getAuthor(),
+            saved.getCustomer(), saved.getLoanDate()));
+        return saved;
+      });
+    } catch (DataIntegrityViolationException e) {
+      if (!ConstraintViolations.isViolationOf(e, ACTIVE_BOOK)) {
+        throw e;
+      }
+      throw new BusinessException("Livro já emprestado");
+    }
   }
 
   public boolean isBookAlreadyLoaned(Book book) {
-    return loanRepository.findByBookAndReturned(book, false).isPresent();
+    return loanRepository.existsByBookAndReturned(book, false);
   }
 }
@@ -0,0 +1,239 @@
+package com.mnishimori.library.domain.stats;
+
+import com.mnishimori.library.domain.event.LoanCreatedEvent;
+import com.mnishimori.library.domain.repository.AuthorBorrowStatsRepository;
+import com.mnishimori.library.domain.repository.BookBorrowStatsRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Borrow counts per book and per author. Every committed loan goes straight into two
+ * heavy-hitters sketches, which answer the top-k queries, and into pending deltas that are
+ * written to the summary tables in one coalesced batch per flush, so loans never wait on the
+ * row of a popular author. Deltas not yet flushed are lost if the application dies, which
+ * {@link #rebuild()} repairs from the loan history.
+ */
+@Slf4j
+@Component
+public class BorrowStats {
+
+  private static final String INCREMENT_BOOK =
+      "update book_borrow_stats set loans = loans + ? where book_id = ?";
+  private static final String INSERT_BOOK =
+      "insert into book_borrow_stats (loans, book_id) values (?, ?)";
+  private static final String INCREMENT_AUTHOR =
+      "update author_borrow_stats set loans = loans + ? where author = ?";
+  private static final String INSERT_AUTHOR =
+      "insert into author_borrow_stats (loans, author) values (?, ?)";
+  private static final String LOAN_ID_RANGE = "select min(id), max(id) from loan";
+  private static final String COUNT_LOANS = "select l.book_id, b.author, count(*) from loan l "
+      + "join book b on b.id = l.book_id where l.id > ? and l.id <= ? group by l.book_id, b.author";
+  private static final int INSERT_BATCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbc;
+  private final TransactionOperations transactions;
+  private final BookBorrowStatsRepository bookStats;
+  private final AuthorBorrowStatsRepository authorStats;
+  private final int chunkSize;
+  private final int parallelism;
+  private final SpaceSaving<Long> topBooks;
+  private final SpaceSaving<String> topAuthors;
+  private final ConcurrentHashMap<Long, Long> pendingBooks = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Long> pendingAuthors = new ConcurrentHashMap<>();
+  private final Object writeLock = new Object();
+
+  public BorrowStats(JdbcTemplate jdbc, TransactionOperations transactions,
+      BookBorrowStatsRepository bookStats, AuthorBorrowStatsRepository authorStats,
+      @Value("${library.stats.top-capacity:1000}") int capacity,
+      @Value("${library.stats.rebuild.chunk-size:100000}") int chunkSize,
+      @Value("${library.stats.rebuild.parallelism:4}") int parallelism) {
+    this.jdbc = jdbc;
+    this.transactions = transactions;
+    this.bookStats = bookStats;
+    this.authorStats = authorStats;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+    this.topBooks = new SpaceSaving<>(capacity);
+    this.topAuthors = new SpaceSaving<>(capacity);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onLoanCreated(LoanCreatedEvent event) {
+    topBooks.add(event.bookId(), 1);
+    pendingBooks.merge(event.bookId(), 1L, Long::sum);
+    if (event.author() != null) {
+      topAuthors.add(event.author(), 1);
+      pendingAuthors.merge(event.author(), 1L, Long::sum);
+    }
+  }
+
+  public int capacity() {
+    return topBooks.capacity();
+  }
+
+  public List<SpaceSaving.Entry<Long>> topBooks(int k) {
+    return topBooks.top(k);
+  }
+
+  public List<SpaceSaving.Entry<String>> topAuthors(int k) {
+    return topAuthors.top(k);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    try {
+      loadSketches();
+    } catch (RuntimeException e) {
+      log.warn("Could not load the borrow statistics, the top-k starts from new loans", e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${library.stats.flush-interval:PT1S}")
+  public void flush() {
+    synchronized (writeLock) {
+      var books = drain(pendingBooks);
+      var authors = drain(pendingAuthors);
+      if (books.isEmpty() && authors.isEmpty()) {
+        return;
+      }
+      try {
+        transactions.executeWithoutResult(status -> {
+          apply(INCREMENT_BOOK, INSERT_BOOK, books);
+          apply(INCREMENT_AUTHOR, INSERT_AUTHOR, authors);
+        });
+      } catch (RuntimeException e) {
+        // another instance may have inserted the same key first, the retry will update it
+        books.forEach((key, delta) -> pendingBooks.merge(key, delta, Long::sum));
+        authors.forEach((key, delta) -> pendingAuthors.merge(key, delta, Long::sum));
+        log.warn("Could not flush the borrow statistics, retrying on the next flush", e);
+      }
+    }
+  }
+
+  /**
+   * Recomputes both summary tables from the whole loan history, counting ranges of loan ids in
+   * parallel, and reloads the sketches from them. Authors are counted by the current author of
+   * each book. A loan created while the rebuild runs may be counted twice.
+   */
+  public void rebuild() {
+    synchronized (writeLock) {
+      var start = System.nanoTime();
+      pendingBooks.clear();
+      pendingAuthors.clear();
+      var books = new ConcurrentHashMap<Long, Long>();
+      var authors = new ConcurrentHashMap<String, Long>();
+      var bounds = jdbc.queryForObject(LOAN_ID_RANGE,
+          (rs, row) -> new long[] {rs.getLong(1), rs.getLong(2)});
+
+      RowCallbackHandler counter = rs -> {
+        var loans = rs.getLong(3);
+        books.merge(rs.getLong(1), loans, Long::sum);
+        var author = rs.getString(2);
+        if (author != null) {
+          authors.merge(author, loans, Long::sum);
+        }
+      };
+
+      var executor = Executors.newFixedThreadPool(parallelism,
+          new CustomizableThreadFactory("borrow-stats-"));
+      try {
+        var chunks = new ArrayList<Future<?>>();
+        for (long lower = bounds[0] - 1; lower < bounds[1]; lower += chunkSize) {
+          var from = lower;
+          var to = Math.min(lower + chunkSize, bounds[1]);
+          chunks.add(executor.submit(() -> jdbc.query(COUNT_LOANS, counter, from, to)));
+        }
+        for (var chunk : chunks) {
+          chunk.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("The borrow statistics rebuild was interrupted", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Could not rebuild the borrow statistics", e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+
+      transactions.executeWithoutResult(status -> {
+        jdbc.update("delete from book_borrow_stats");
+        jdbc.update("delete from author_borrow_stats");
+        insert(INSERT_BOOK, books);
+        insert(INSERT_AUTHOR, authors);
+      });
+      loadSketches();
+      log.info("Borrow statistics of {} books and {} authors rebuilt in {} ms", books.size(),
+          authors.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+  }
+
+  private void loadSketches() {
+    var page = PageRequest.of(0, topBooks.capacity());
+    var books = bookStats.findAllByOrderByLoansDesc(page);
+    var authors = authorStats.findAllByOrderByLoansDesc(page);
+    topBooks.clear();
+    topAuthors.clear();
+    books.forEach(stats -> topBooks.add(stats.getBookId(), stats.getLoans()));
+    authors.forEach(stats -> topAuthors.add(stats.getAuthor(), stats.getLoans()));
+  }
+
+  private <K> void apply(String increment, String insert, Map<K, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    var rows = toRows(deltas);
+    var updated = jdbc.batchUpdate(increment, rows);
+    var missing = new ArrayList<Object[]>();
+    for (int i = 0; i < updated.length; i++) {
+      if (updated[i] == 0) {
+        missing.add(rows.get(i));
+      }
+    }
+    if (!missing.isEmpty()) {
+      jdbc.batchUpdate(insert, missing);
+    }
+  }
+
+  private <K> void insert(String insert, Map<K, Long> counts) {
+    var rows = toRows(counts);
+    for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+      jdbc.batchUpdate(insert, rows.subList(from, Math.min(from + INSERT_BATCH_SIZE,
+          rows.size())));
+    }
+  }
+
+  private static <K> List<Object[]> toRows(Map<K, Long> counts) {
+    var rows = new ArrayList<Object[]>(counts.size());
+    counts.forEach((key, count) -> rows.add(new Object[] {count, key}));
+    return rows;
+  }
+
+  private static <K> Map<K, Long> drain(ConcurrentHashMap<K, Long> pending) {
+    var drained = new HashMap<K, Long>();
+    for (var key : pending.keySet()) {
+      var delta = pending.remove(key);
+      if (delta != null) {
+        drained.put(key, delta);
+      }
+    }
+    return drained;
+  }
+}
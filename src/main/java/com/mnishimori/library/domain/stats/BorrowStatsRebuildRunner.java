@@ -0,0 +1,28 @@
+package com.mnishimori.library.domain.stats;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the borrow statistics before the application starts serving when it is launched
+ * with {@code --rebuild-borrow-stats}.
+ */
+@Component
+public class BorrowStatsRebuildRunner implements ApplicationRunner {
+
+  static final String OPTION = "rebuild-borrow-stats";
+
+  private final BorrowStats borrowStats;
+
+  public BorrowStatsRebuildRunner(BorrowStats borrowStats) {
+    this.borrowStats = borrowStats;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (args.containsOption(OPTION)) {
+      borrowStats.rebuild();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.mnishimori.library.domain.stats;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters sketch: keeps at most {@code capacity} counters, and a key that
+ * arrives when they are all taken replaces the smallest one, inheriting its count as the error.
+ * Any key counted more than {@code total / capacity} times is guaranteed to be in the sketch, and
+ * its count overestimates the real one by at most its error.
+ */
+public class SpaceSaving<K> {
+
+  private final int capacity;
+  private final Map<K, Counter<K>> counters = new HashMap<>();
+  private final TreeSet<Counter<K>> byCount = new TreeSet<>(
+      Comparator.<Counter<K>>comparingLong(counter -> counter.count)
+          .thenComparingLong(counter -> counter.sequence));
+  private long sequence;
+  private List<Entry<K>> snapshot = List.of();
+  private boolean stale;
+
+  public SpaceSaving(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public synchronized void add(K key, long count) {
+    var counter = counters.get(key);
+    if (counter != null) {
+      byCount.remove(counter);
+      counter.count += count;
+    } else if (counters.size() < capacity) {
+      counter = new Counter<>(key, count, 0, sequence++);
+      counters.put(key, counter);
+    } else {
+      var smallest = byCount.pollFirst();
+      counters.remove(smallest.key);
+      counter = new Counter<>(key, smallest.count + count, smallest.count, sequence++);
+      counters.put(key, counter);
+    }
+    byCount.add(counter);
+    stale = true;
+  }
+
+  /**
+   * The {@code k} keys with the highest counts, highest first. The sorted entries are cached
+   * until the next update, so repeated reads only copy a sublist.
+   */
+  public synchronized List<Entry<K>> top(int k) {
+    if (stale) {
+      snapshot = byCount.descendingSet().stream()
+          .map(counter -> new Entry<>(counter.key, counter.count, counter.error))
+          .toList();
+      stale = false;
+    }
+    return snapshot.subList(0, Math.min(k, snapshot.size()));
+  }
+
+  public synchronized void clear() {
+    counters.clear();
+    byCount.clear();
+    snapshot = List.of();
+    stale = false;
+  }
+
+  public record Entry<K>(K key, long count, long error) {
+  }
+
+  private static final class Counter<K> {
+
+    private final K key;
+    private final long error;
+    private final long sequence;
+    private long count;
+
+    private Counter(K key, long count, long error, long sequence) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+      this.sequence = sequence;
+    }
+  }
+}
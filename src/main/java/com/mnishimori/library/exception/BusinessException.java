@@ -1,8 +1,12 @@
 package com.mnishimori.library.exception;
 
+/**
+ * A broken business rule, answered with 400. These are expected, so they don't fill in a stack
+ * trace.
+ */
 public class BusinessException extends RuntimeException{
 
   public BusinessException(String message) {
-    super(message);
+    super(message, null, false, false);
   }
 }
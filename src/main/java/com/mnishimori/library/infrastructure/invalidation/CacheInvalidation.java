@@ -0,0 +1,33 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row of the change log read by {@link DatabaseInvalidationTransport}. Only mapped so that the
+ * table is part of the schema, rows are written and read through JDBC.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "cache_invalidation")
+public class CacheInvalidation {
+
+  // an identity rather than a pooled sequence, so that ids follow the order of the inserts
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+  @Column(nullable = false, length = 36)
+  private String origin;
+  @Column(nullable = false)
+  private Long bookId;
+  @Column(nullable = false)
+  private Instant changedAt;
+}
@@ -0,0 +1,89 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Exchanges invalidations through the {@code cache_invalidation} table of the shared database, so
+ * that no extra infrastructure is needed. Each instance polls for ids above the highest one it read.
+ *
+ * <p>Ids are handed out when a row is inserted but become visible when its transaction commits,
+ * so a lower id can show up after a higher one was read. The ids read within the overlap time are
+ * remembered, and the gaps between them are polled as well until they are older than that. Rows older than the retention are deleted by whichever instance gets there
+ * first.
+ */
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+
+  private static final int FETCH_SIZE = 1000;
+  private static final String INSERT =
+      "insert into cache_invalidation (origin, book_id, changed_at) values (?, ?, ?)";
+  private static final String SELECT = "select id, origin, book_id, changed_at"
+      + " from cache_invalidation where id > ? order by id fetch first " + FETCH_SIZE
+      + " rows only";
+  private static final String SELECT_BETWEEN = "select id, origin, book_id, changed_at"
+      + " from cache_invalidation where id > ? and id < ?";
+  private static final String MAX_ID = "select coalesce(max(id), 0) from cache_invalidation";
+  private static final String DELETE = "delete from cache_invalidation where changed_at < ?";
+
+  private final JdbcTemplate jdbc;
+  private final Duration overlap;
+  private final Duration retention;
+
+  // ids above the watermark that were already delivered, with the time they were first read
+  private final TreeMap<Long, Long> recent = new TreeMap<>();
+  private long watermark = -1;
+  private long lastCleanup = System.nanoTime();
+
+  public DatabaseInvalidationTransport(JdbcTemplate jdbc, Duration overlap, Duration retention) {
+    this.jdbc = jdbc;
+    this.overlap = overlap;
+    this.retention = retention;
+  }
+
+  @Override
+  public void publish(List<Invalidation> invalidations) {
+    jdbc.batchUpdate(INSERT, invalidations.stream()
+        .map(invalidation -> new Object[] {invalidation.origin(), invalidation.bookId(),
+            Timestamp.from(invalidation.changedAt())})
+        .toList());
+  }
+
+  @Override
+  public synchronized List<Invalidation> receive() {
+    if (watermark < 0) {
+      // whatever happened before this instance started is not in its caches
+      watermark = jdbc.queryForObject(MAX_ID, Long.class);
+      return List.of();
+    }
+    var now = System.nanoTime();
+    var received = new ArrayList<Invalidation>();
+    RowCallbackHandler collect = rs -> {
+      if (recent.putIfAbsent(rs.getLong(1), now) == null) {
+        received.add(new Invalidation(rs.getString(2), rs.getLong(3),
+            rs.getTimestamp(4).toInstant()));
+      }
+    };
+    var highest = recent.isEmpty() ? watermark : recent.lastKey();
+    if (recent.size() < highest - watermark) {
+      // some ids below the highest one read are missing, they may have been committed since
+      jdbc.query(SELECT_BETWEEN, collect, watermark, highest);
+    }
+    jdbc.query(SELECT, collect, highest);
+
+    var settled = now - overlap.toNanos();
+    while (!recent.isEmpty() && recent.firstEntry().getValue() - settled < 0) {
+      watermark = recent.pollFirstEntry().getKey();
+    }
+    if (now - lastCleanup > overlap.toNanos()) {
+      jdbc.update(DELETE, Timestamp.from(Instant.now().minus(retention)));
+      lastCleanup = now;
+    }
+    return received;
+  }
+}
@@ -0,0 +1,10 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import java.time.Instant;
+
+/**
+ * A change to a book, as sent from the instance that made it to all the others.
+ */
+public record Invalidation(String origin, Long bookId, Instant changedAt) {
+
+}
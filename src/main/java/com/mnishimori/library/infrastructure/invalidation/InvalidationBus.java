@@ -0,0 +1,176 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import com.mnishimori.library.domain.event.BookChangedEvent;
+import com.mnishimori.library.domain.event.BooksInvalidatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tells the other instances which books changed here, and drops the local copies of the books
+ * they changed by publishing a {@link BooksInvalidatedEvent}. Changes are collected after commit
+ * and coalesced per book until the next flush, so a burst of updates to one book is sent once.
+ *
+ * <p>Runs on a thread of its own rather than on the scheduler, which has a single thread shared
+ * with the jobs.
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+  private final InvalidationTransport transport;
+  private final ApplicationEventPublisher events;
+  private final boolean enabled;
+  private final Duration interval;
+  private final String origin = UUID.randomUUID().toString();
+  // book id -> time of its earliest change not sent yet
+  private final ConcurrentHashMap<Long, Instant> pending = new ConcurrentHashMap<>();
+
+  private final Counter published;
+  private final Counter received;
+  private final Counter failures;
+  private final DistributionSummary batchSizes;
+  private final Timer lag;
+
+  private volatile boolean running;
+  private volatile Thread bus;
+
+  public InvalidationBus(InvalidationTransport transport, ApplicationEventPublisher events,
+      MeterRegistry registry,
+      @Value("${library.invalidation.enabled:true}") boolean enabled,
+      @Value("${library.invalidation.interval:200ms}") Duration interval) {
+    this.transport = transport;
+    this.events = events;
+    this.enabled = enabled;
+    this.interval = interval;
+    this.published = Counter.builder("library.invalidation.published")
+        .description("Book invalidations sent to the other instances")
+        .register(registry);
+    this.received = Counter.builder("library.invalidation.received")
+        .description("Book invalidations received from the other instances")
+        .register(registry);
+    this.failures = Counter.builder("library.invalidation.failures")
+        .description("Failed attempts to send or receive invalidations")
+        .register(registry);
+    this.batchSizes = DistributionSummary.builder("library.invalidation.batch.size")
+        .description("Book invalidations per sent batch")
+        .register(registry);
+    this.lag = Timer.builder("library.invalidation.lag")
+        .description("Time from a change on another instance until the local copies were dropped")
+        .register(registry);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent event) {
+    if (enabled) {
+      pending.putIfAbsent(event.bookId(), Instant.now());
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    bus = new Thread(this::run, "cache-invalidation");
+    bus.setDaemon(true);
+    bus.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    var thread = bus;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  /**
+   * Sends the changes collected so far and returns how many books they covered.
+   */
+  public int flush() throws Exception {
+    var batch = new ArrayList<Invalidation>(pending.size());
+    for (var bookId : pending.keySet()) {
+      var changedAt = pending.remove(bookId);
+      if (changedAt != null) {
+        batch.add(new Invalidation(origin, bookId, changedAt));
+      }
+    }
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    try {
+      transport.publish(batch);
+    } catch (Exception e) {
+      // kept for the next attempt, merged with whatever changed in the meantime
+      batch.forEach(invalidation -> pending.merge(invalidation.bookId(),
+          invalidation.changedAt(), (a, b) -> a.isBefore(b) ? a : b));
+      throw e;
+    }
+    published.increment(batch.size());
+    batchSizes.record(batch.size());
+    return batch.size();
+  }
+
+  /**
+   * Drops the local copies of the books other instances changed since the last call, and returns
+   * how many books that were.
+   */
+  public int receive() throws Exception {
+    var invalidations = transport.receive();
+    Set<Long> bookIds = new HashSet<>();
+    for (var invalidation : invalidations) {
+      if (!origin.equals(invalidation.origin())) {
+        bookIds.add(invalidation.bookId());
+      }
+    }
+    if (bookIds.isEmpty()) {
+      return 0;
+    }
+    events.publishEvent(new BooksInvalidatedEvent(Set.copyOf(bookIds)));
+
+    // measured against the clock of the origin, so skew between the hosts adds to it
+    var now = Instant.now();
+    invalidations.stream()
+        .filter(invalidation -> !origin.equals(invalidation.origin()))
+        .forEach(invalidation -> lag.record(Duration.between(invalidation.changedAt(), now)));
+    received.increment(bookIds.size());
+    return bookIds.size();
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        flush();
+        receive();
+      } catch (Exception e) {
+        failures.increment();
+        log.warn("Could not exchange cache invalidations, retrying in {}", interval, e);
+      }
+      if (running) {
+        LockSupport.parkNanos(interval.toNanos());
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Registers the database transport of the invalidation bus while
+ * {@code library.invalidation.transport} is {@code database}, the default. Set it to anything else
+ * to provide an {@link InvalidationTransport} bean of your own.
+ */
+@Configuration
+public class InvalidationConfiguration {
+
+  @Bean
+  @ConditionalOnProperty(name = "library.invalidation.transport", havingValue = "database",
+      matchIfMissing = true)
+  public InvalidationTransport invalidationTransport(JdbcTemplate jdbc,
+      @Value("${library.invalidation.overlap:5s}") Duration overlap,
+      @Value("${library.invalidation.retention:1h}") Duration retention) {
+    return new DatabaseInvalidationTransport(jdbc, overlap, retention);
+  }
+}
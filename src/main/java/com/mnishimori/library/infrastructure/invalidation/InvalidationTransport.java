@@ -0,0 +1,18 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import java.util.List;
+
+/**
+ * Carries invalidations between the instances. Delivery is best effort: the local caches expire
+ * on their own, which bounds how long a lost invalidation leaves them stale.
+ */
+public interface InvalidationTransport {
+
+  void publish(List<Invalidation> invalidations) throws Exception;
+
+  /**
+   * Returns the invalidations that arrived since the last call, including the ones published by
+   * this instance. A push-based transport would buffer them until then.
+   */
+  List<Invalidation> receive() throws Exception;
+}
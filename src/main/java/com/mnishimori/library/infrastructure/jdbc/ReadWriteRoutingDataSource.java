@@ -0,0 +1,90 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replicas, round robin, and everything else to the primary.
+ * Connections are only fetched when the first statement runs, because the transaction manager
+ * asks for one before the transaction is marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+  private static final String PRIMARY = "primary";
+  private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+  private final DataSource primary;
+  private final List<DataSource> replicas;
+
+  public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+    this.primary = primary;
+    this.replicas = List.copyOf(replicas);
+    var router = new Router(this.replicas.size());
+    var targets = new HashMap<Object, Object>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < this.replicas.size(); i++) {
+      targets.put(i, this.replicas.get(i));
+    }
+    router.setTargetDataSources(targets);
+    router.setDefaultTargetDataSource(primary);
+    router.afterPropertiesSet();
+    setTargetDataSource(router);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Makes the current thread read from the primary until {@link #clearPrimaryOnly()}, so a
+   * client sees its own writes before they reach the replicas.
+   */
+  static void primaryOnly() {
+    PRIMARY_ONLY.set(Boolean.TRUE);
+  }
+
+  static void clearPrimaryOnly() {
+    PRIMARY_ONLY.remove();
+  }
+
+  static boolean isPrimaryOnly() {
+    return PRIMARY_ONLY.get() != null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (var replica : replicas) {
+      close(replica);
+    }
+    close(primary);
+  }
+
+  private static void close(DataSource dataSource) throws IOException {
+    if (dataSource instanceof Closeable closeable) {
+      closeable.close();
+    }
+  }
+
+  private static final class Router extends AbstractRoutingDataSource {
+
+    private final int replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private Router(int replicas) {
+      this.replicas = replicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+      if (replicas == 0 || PRIMARY_ONLY.get() != null
+          || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+        return PRIMARY;
+      }
+      return Math.floorMod(next.getAndIncrement(), replicas);
+    }
+  }
+}
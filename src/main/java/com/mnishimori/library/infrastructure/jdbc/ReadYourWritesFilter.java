@@ -0,0 +1,69 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Keeps a client on the primary for a while after it writes. Every write sets a cookie holding
+ * the time until which that client's reads skip the replicas, and the writes themselves read
+ * from the primary too, so they never check a version against a lagging replica.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  static final String COOKIE = "library-read-primary-until";
+  private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+  private final Duration window;
+
+  public ReadYourWritesFilter(Duration window) {
+    this.window = window;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    var now = System.currentTimeMillis();
+    var write = !SAFE_METHODS.contains(request.getMethod());
+    if (write) {
+      var cookie = new Cookie(COOKIE, String.valueOf(now + window.toMillis()));
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+      response.addCookie(cookie);
+    }
+    if (!write && primaryUntil(request) <= now) {
+      chain.doFilter(request, response);
+      return;
+    }
+    ReadWriteRoutingDataSource.primaryOnly();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      ReadWriteRoutingDataSource.clearPrimaryOnly();
+    }
+  }
+
+  private static long primaryUntil(HttpServletRequest request) {
+    var cookies = request.getCookies();
+    if (cookies == null) {
+      return 0;
+    }
+    for (var cookie : cookies) {
+      if (COOKIE.equals(cookie.getName())) {
+        try {
+          return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 0;
+  }
+}
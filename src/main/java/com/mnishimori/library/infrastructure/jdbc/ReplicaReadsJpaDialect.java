@@ -0,0 +1,45 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import java.sql.SQLException;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Keeps the transactions routed to a replica from filling the second-level cache. They still read
+ * from it, but what they load from a lagging replica may predate a change whose eviction already
+ * ran, and would then be served until the next change or the region's expiry. Transactions on the
+ * primary fill the cache as before.
+ */
+class ReplicaReadsJpaDialect extends HibernateJpaDialect {
+
+  private static final String STORE_MODE = SpecHints.HINT_SPEC_CACHE_STORE_MODE;
+
+  @Override
+  public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+      throws SQLException {
+    var transactionData = super.beginTransaction(entityManager, definition);
+    if (!definition.isReadOnly() || ReadWriteRoutingDataSource.isPrimaryOnly()) {
+      return transactionData;
+    }
+    var storeMode = entityManager.getProperties().getOrDefault(STORE_MODE, CacheStoreMode.USE);
+    entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+    return new ReplicaRead(transactionData, entityManager, storeMode);
+  }
+
+  @Override
+  public void cleanupTransaction(Object transactionData) {
+    if (transactionData instanceof ReplicaRead read) {
+      read.entityManager().setProperty(STORE_MODE, read.storeMode());
+      super.cleanupTransaction(read.transactionData());
+    } else {
+      super.cleanupTransaction(transactionData);
+    }
+  }
+
+  private record ReplicaRead(Object transactionData, EntityManager entityManager,
+                             Object storeMode) {
+  }
+}
@@ -0,0 +1,68 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+/**
+ * Replaces the data source with a {@link ReadWriteRoutingDataSource} once a replica is
+ * configured. The primary keeps the {@code spring.datasource} settings, and every entry of
+ * {@code library.datasource.replicas} is bound as a Hikari pool, e.g.
+ * {@code library.datasource.replicas[0].jdbc-url}. Transactions read from the replicas don't
+ * fill the second-level cache, see {@link ReplicaReadsJpaDialect}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(ReplicaRoutingConfiguration.REPLICA_URL)
+public class ReplicaRoutingConfiguration {
+
+  static final String REPLICA_URL = "library.datasource.replicas[0].jdbc-url";
+
+  @Bean
+  @Primary
+  public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties,
+      Environment environment) {
+    var binder = Binder.get(environment);
+    var primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+    if (primary.getPoolName() == null) {
+      primary.setPoolName("primary");
+    }
+    var replicas = binder.bind("library.datasource.replicas",
+        Bindable.listOf(HikariDataSource.class)).get();
+    for (int i = 0; i < replicas.size(); i++) {
+      if (replicas.get(i).getPoolName() == null) {
+        replicas.get(i).setPoolName("replica-" + i);
+      }
+    }
+    return new ReadWriteRoutingDataSource(primary, replicas);
+  }
+
+  @Bean
+  public static BeanPostProcessor replicaReadsJpaDialect() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof LocalContainerEntityManagerFactoryBean factory) {
+          factory.setJpaDialect(new ReplicaReadsJpaDialect());
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  public ReadYourWritesFilter readYourWritesFilter(
+      @Value("${library.datasource.read-your-writes:5s}") Duration window) {
+    return new ReadYourWritesFilter(window);
+  }
+}
@@ -0,0 +1,35 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import com.mnishimori.library.domain.cache.ReplicaLag;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The replica lag as routed by {@link ReadWriteRoutingDataSource}: reads outside of a read-write
+ * transaction may go to a replica unless the thread reads from the primary only, and a replica is
+ * assumed to be at most the read-your-writes window behind. Zero when no replica is configured.
+ */
+@Component
+public class RoutingReplicaLag implements ReplicaLag {
+
+  private final Duration window;
+
+  public RoutingReplicaLag(Environment environment,
+      @Value("${library.datasource.read-your-writes:5s}") Duration window) {
+    this.window = environment.containsProperty(ReplicaRoutingConfiguration.REPLICA_URL)
+        ? window : Duration.ZERO;
+  }
+
+  @Override
+  public Duration current() {
+    if (window.isZero() || ReadWriteRoutingDataSource.isPrimaryOnly()
+        || TransactionSynchronizationManager.isActualTransactionActive()
+        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return Duration.ZERO;
+    }
+    return window;
+  }
+}
@@ -0,0 +1,36 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Number of JDBC statements executed, by type. A batch counts as one statement, as it is one
+ * round trip to the database.
+ */
+public final class StatementCount {
+
+  private final long[] counts = new long[StatementType.values().length];
+
+  void add(StatementType type) {
+    counts[type.ordinal()]++;
+  }
+
+  public long get(StatementType type) {
+    return counts[type.ordinal()];
+  }
+
+  public long total() {
+    return Arrays.stream(counts).sum();
+  }
+
+  @Override
+  public String toString() {
+    var joiner = new StringJoiner(", ");
+    for (var type : StatementType.values()) {
+      if (get(type) > 0) {
+        joiner.add(type.name().toLowerCase() + "=" + get(type));
+      }
+    }
+    return joiner.toString();
+  }
+}
@@ -0,0 +1,172 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Counts the statements of each request and reports them in the {@code X-Statement-Count} and
+ * {@code X-Statement-Types} response headers. The headers are written when the response is
+ * committed, so statements run while a large body is being streamed aren't included. Only
+ * registered when {@code library.statements.count.enabled} is set.
+ */
+@Component
+@ConditionalOnProperty("library.statements.count.enabled")
+public class StatementCountFilter extends OncePerRequestFilter {
+
+  static final String COUNT_HEADER = "X-Statement-Count";
+  static final String TYPES_HEADER = "X-Statement-Types";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    var count = StatementCounter.start();
+    var wrapper = new CountingResponse(response, count);
+    try {
+      chain.doFilter(request, wrapper);
+      wrapper.writeHeaders();
+    } finally {
+      StatementCounter.stop(count);
+      StatementCounter.requestCompleted(request.getMethod() + " " + request.getRequestURI(),
+          count);
+    }
+  }
+
+  private static final class CountingResponse extends HttpServletResponseWrapper {
+
+    private final StatementCount count;
+    private boolean headersWritten;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CountingResponse(HttpServletResponse response, StatementCount count) {
+      super(response);
+      this.count = count;
+    }
+
+    void writeHeaders() {
+      if (!headersWritten && !isCommitted()) {
+        setHeader(COUNT_HEADER, String.valueOf(count.total()));
+        setHeader(TYPES_HEADER, count.toString());
+      }
+      headersWritten = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        outputStream = new CountingOutputStream(super.getOutputStream());
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        var target = super.getWriter();
+        writer = new PrintWriter(target) {
+          @Override
+          public void write(char[] buf, int off, int len) {
+            writeHeaders();
+            super.write(buf, off, len);
+          }
+
+          @Override
+          public void write(String s, int off, int len) {
+            writeHeaders();
+            super.write(s, off, len);
+          }
+
+          @Override
+          public void write(int c) {
+            writeHeaders();
+            super.write(c);
+          }
+
+          @Override
+          public void flush() {
+            writeHeaders();
+            super.flush();
+          }
+        };
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      writeHeaders();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      writeHeaders();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      writeHeaders();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      writeHeaders();
+      super.sendRedirect(location);
+    }
+
+    private final class CountingOutputStream extends ServletOutputStream {
+
+      private final ServletOutputStream target;
+
+      CountingOutputStream(ServletOutputStream target) {
+        this.target = target;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        writeHeaders();
+        target.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        writeHeaders();
+        target.write(b, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        writeHeaders();
+        target.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        writeHeaders();
+        target.close();
+      }
+
+      @Override
+      public boolean isReady() {
+        return target.isReady();
+      }
+
+      @Override
+      public void setWriteListener(WriteListener listener) {
+        target.setWriteListener(listener);
+      }
+    }
+  }
+}
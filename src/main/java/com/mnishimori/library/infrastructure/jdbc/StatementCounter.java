@@ -0,0 +1,70 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Counts the statements executed by the current thread while a count is started. Counts can be
+ * nested; a statement is added to every count open on the thread.
+ */
+public final class StatementCounter {
+
+  private static final ThreadLocal<Deque<StatementCount>> COUNTS = new ThreadLocal<>();
+  private static final List<BiConsumer<String, StatementCount>> REQUEST_LISTENERS =
+      new CopyOnWriteArrayList<>();
+
+  private StatementCounter() {
+  }
+
+  public static StatementCount start() {
+    var counts = COUNTS.get();
+    if (counts == null) {
+      counts = new ArrayDeque<>();
+      COUNTS.set(counts);
+    }
+    var count = new StatementCount();
+    counts.push(count);
+    return count;
+  }
+
+  public static void stop(StatementCount count) {
+    var counts = COUNTS.get();
+    if (counts != null) {
+      counts.remove(count);
+      if (counts.isEmpty()) {
+        COUNTS.remove();
+      }
+    }
+  }
+
+  static void record(String sql) {
+    var counts = COUNTS.get();
+    if (counts == null) {
+      return;
+    }
+    var type = StatementType.of(sql);
+    for (var count : counts) {
+      count.add(type);
+    }
+  }
+
+  /**
+   * Registers a listener told about the statements of every HTTP request once it completes.
+   */
+  public static void addRequestListener(BiConsumer<String, StatementCount> listener) {
+    REQUEST_LISTENERS.add(listener);
+  }
+
+  public static void removeRequestListener(BiConsumer<String, StatementCount> listener) {
+    REQUEST_LISTENERS.remove(listener);
+  }
+
+  static void requestCompleted(String request, StatementCount count) {
+    for (var listener : REQUEST_LISTENERS) {
+      listener.accept(request, count);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Hands out connections whose statements report every execution to the {@link StatementCounter}.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+  public StatementCountingDataSource(DataSource targetDataSource) {
+    super(targetDataSource);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return countingConnection(obtainTargetDataSource().getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return countingConnection(obtainTargetDataSource().getConnection(username, password));
+  }
+
+  private static Connection countingConnection(Connection connection) {
+    return proxy(Connection.class, connection, (proxy, method, args) -> {
+      var result = invoke(connection, method, args);
+      if (result instanceof CallableStatement statement) {
+        return countingStatement(CallableStatement.class, statement, (String) args[0]);
+      }
+      if (result instanceof PreparedStatement statement) {
+        return countingStatement(PreparedStatement.class, statement, (String) args[0]);
+      }
+      if (result instanceof Statement statement) {
+        return countingStatement(Statement.class, statement, null);
+      }
+      return result;
+    });
+  }
+
+  private static <T extends Statement> T countingStatement(Class<T> type, T statement,
+      String preparedSql) {
+    var batchSql = new String[1];
+    return proxy(type, statement, (proxy, method, args) -> {
+      var name = method.getName();
+      if (name.equals("addBatch") && args != null && batchSql[0] == null) {
+        batchSql[0] = (String) args[0];
+      } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+        StatementCounter.record(preparedSql != null ? preparedSql : batchSql[0]);
+        batchSql[0] = null;
+      } else if (name.startsWith("execute")) {
+        StatementCounter.record(args != null && args.length > 0 && args[0] instanceof String sql
+            ? sql : preparedSql);
+      }
+      return invoke(statement, method, args);
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+        new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+          case "equals" -> proxy == args[0];
+          case "hashCode" -> System.identityHashCode(proxy);
+          default -> handler.invoke(proxy, method, args);
+        });
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+}
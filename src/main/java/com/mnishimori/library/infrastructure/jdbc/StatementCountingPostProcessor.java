@@ -0,0 +1,24 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the data sources in a {@link StatementCountingDataSource} when
+ * {@code library.statements.count.enabled} is set.
+ */
+@Component
+@ConditionalOnProperty("library.statements.count.enabled")
+public class StatementCountingPostProcessor implements BeanPostProcessor {
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource dataSource
+        && !(bean instanceof StatementCountingDataSource)) {
+      return new StatementCountingDataSource(dataSource);
+    }
+    return bean;
+  }
+}
@@ -0,0 +1,23 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+public enum StatementType {
+
+  SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+  static StatementType of(String sql) {
+    if (sql == null) {
+      return OTHER;
+    }
+    var start = 0;
+    while (start < sql.length() && !Character.isLetter(sql.charAt(start))) {
+      start++;
+    }
+    for (var type : values()) {
+      var keyword = type.name();
+      if (type != OTHER && sql.regionMatches(true, start, keyword, 0, keyword.length())) {
+        return type;
+      }
+    }
+    return OTHER;
+  }
+}
@@ -0,0 +1,68 @@
+package com.mnishimori.library.infrastructure.jpa;
+
+import org.hibernate.CacheMode;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * The JCache region factory, except that query results are not stored by sessions that may only
+ * read the cache. Hibernate 6.1 stores the result of a cacheable query that missed even under
+ * {@link CacheMode#GET}, which is how reads routed to a replica keep what they load out of the
+ * second-level cache.
+ */
+class GetOnlyQueryCacheRegionFactory extends JCacheRegionFactory {
+
+  @Override
+  protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+      SessionFactoryImplementor sessionFactory) {
+    return new GetOnlyStorageAccess(
+        super.createQueryResultsRegionStorageAccess(regionName, sessionFactory));
+  }
+
+  private record GetOnlyStorageAccess(StorageAccess storage) implements StorageAccess {
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+      return storage.getFromCache(key, session);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+      if (session == null || session.getCacheMode() != CacheMode.GET) {
+        storage.putIntoCache(key, value, session);
+      }
+    }
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+      storage.removeFromCache(key, session);
+    }
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+      storage.clearCache(session);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+      return storage.contains(key);
+    }
+
+    @Override
+    public void evictData() {
+      storage.evictData();
+    }
+
+    @Override
+    public void evictData(Object key) {
+      storage.evictData(key);
+    }
+
+    @Override
+    public void release() {
+      storage.release();
+    }
+  }
+}
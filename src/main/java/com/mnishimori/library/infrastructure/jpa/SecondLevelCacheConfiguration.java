@@ -0,0 +1,78 @@
+package com.mnishimori.library.infrastructure.jpa;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the Hibernate second-level cache regions in a Caffeine JCache manager and hands it to
+ * Hibernate, through a region factory that keeps replica reads from storing query results. Every
+ * region reports its size, hits and misses ({@code cache.*}) and its hit ratio.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecondLevelCacheConfiguration {
+
+  static final String BOOK_REGION = "book";
+  static final String BOOK_ISBN_REGION = "book-isbn";
+  static final String QUERY_RESULTS_REGION = "default-query-results-region";
+  static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+  @Bean(destroyMethod = "close")
+  public CacheManager secondLevelCacheManager(MeterRegistry registry,
+      @Value("${library.cache.l2.book.maximum-size:10000}") long bookSize,
+      @Value("${library.cache.l2.book.expire-after-write:10m}") Duration bookExpiry,
+      @Value("${library.cache.l2.query.maximum-size:10000}") long querySize,
+      @Value("${library.cache.l2.query.expire-after-write:10m}") Duration queryExpiry) {
+    var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    // a manager per application context, so contexts on different databases never share rows
+    var manager = provider.getCacheManager(URI.create("library-l2-" + UUID.randomUUID()),
+        getClass().getClassLoader());
+    createRegion(manager, registry, BOOK_REGION, bookSize, bookExpiry);
+    createRegion(manager, registry, BOOK_ISBN_REGION, querySize, queryExpiry);
+    createRegion(manager, registry, QUERY_RESULTS_REGION, querySize, queryExpiry);
+    // never evicted, a cached query result is only trusted while its tables' timestamps are known
+    createRegion(manager, registry, UPDATE_TIMESTAMPS_REGION, null, null);
+    return manager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager manager) {
+    return properties -> {
+      properties.put(AvailableSettings.CACHE_REGION_FACTORY, new GetOnlyQueryCacheRegionFactory());
+      properties.put(ConfigSettings.CACHE_MANAGER, manager);
+    };
+  }
+
+  private static void createRegion(CacheManager manager, MeterRegistry registry, String name,
+      Long maximumSize, Duration expireAfterWrite) {
+    var configuration = new CaffeineConfiguration<Object, Object>();
+    if (maximumSize != null) {
+      configuration.setMaximumSize(OptionalLong.of(maximumSize));
+    }
+    if (expireAfterWrite != null) {
+      configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+    }
+    configuration.setNativeStatisticsEnabled(true);
+    Cache<?, ?> cache = manager.createCache(name, configuration).unwrap(Cache.class);
+    CaffeineCacheMetrics.monitor(registry, cache, name);
+    Gauge.builder("cache.hit.ratio", cache, region -> region.stats().hitRate())
+        .description("Share of the region's lookups that were hits")
+        .tag("cache", name)
+        .register(registry);
+  }
+}
@@ -0,0 +1,34 @@
+package com.mnishimori.library.infrastructure.jpa;
+
+import com.mnishimori.library.domain.event.BooksInvalidatedEvent;
+import com.mnishimori.library.domain.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts books changed on other instances from the second-level cache. Runs before the other
+ * listeners, which reload those books and must not get them from the cache again.
+ */
+@Component
+public class SecondLevelCacheInvalidator {
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  public SecondLevelCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @EventListener
+  public void onBooksInvalidated(BooksInvalidatedEvent event) {
+    var cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    event.bookIds().forEach(id -> cache.evictEntityData(Book.class, id));
+    // the update timestamps of the other instance never reach this one, so the cached ISBN
+    // queries can't tell they are stale
+    cache.evictQueryRegions();
+  }
+}
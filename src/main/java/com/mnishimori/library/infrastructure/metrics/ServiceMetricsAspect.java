@@ -0,0 +1,82 @@
+package com.mnishimori.library.infrastructure.metrics;
+
+import com.mnishimori.library.domain.service.BookService;
+import com.mnishimori.library.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every call to the book and loan services as {@code library.service}, tagged by service,
+ * method, outcome ({@code SUCCESS}, {@code BUSINESS_ERROR} or {@code ERROR}) and exception. An
+ * overloaded method is tagged with its parameter types, e.g. {@code find(Book,Pageable)}, so that
+ * the offset and keyset searches are told apart. Repository calls are timed by Spring Boot as
+ * {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+  static final String METRIC = "library.service";
+
+  private final MeterRegistry registry;
+  private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+  public ServiceMetricsAspect(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Around("execution(public * com.mnishimori.library.domain.service.BookService+.*(..))"
+      + " || execution(public * com.mnishimori.library.domain.service.LoanService+.*(..))")
+  public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+    var method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+    var start = registry.config().clock().monotonicTime();
+    try {
+      var result = joinPoint.proceed();
+      record(successTimers.computeIfAbsent(method,
+          m -> timer(joinPoint.getTarget(), m, "SUCCESS", "none")), start);
+      return result;
+    } catch (Throwable e) {
+      var outcome = e instanceof BusinessException ? "BUSINESS_ERROR" : "ERROR";
+      record(timer(joinPoint.getTarget(), method, outcome, e.getClass().getSimpleName()), start);
+      throw e;
+    }
+  }
+
+  private void record(Timer timer, long start) {
+    timer.record(registry.config().clock().monotonicTime() - start,
+        TimeUnit.NANOSECONDS);
+  }
+
+  private Timer timer(Object service, Method method, String outcome, String exception) {
+    return Timer.builder(METRIC)
+        .description("Time spent in the book and loan services")
+        .tag("service", service instanceof BookService ? "BookService" : "LoanService")
+        .tag("method", nameOf(method))
+        .tag("outcome", outcome)
+        .tag("exception", exception)
+        .register(registry);
+  }
+
+  private static String nameOf(Method method) {
+    var overloads = Arrays.stream(method.getDeclaringClass().getMethods())
+        .filter(other -> other.getName().equals(method.getName()))
+        .count();
+    if (overloads == 1) {
+      return method.getName();
+    }
+    return Arrays.stream(method.getParameterTypes())
+        .map(Class::getSimpleName)
+        .collect(Collectors.joining(",", method.getName() + "(", ")"));
+  }
+}
@@ -0,0 +1,42 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Appends the events to a file, one JSON object per line, and syncs it to disk before the batch
+ * is acknowledged.
+ */
+public class FileOutboxSink implements OutboxSink {
+
+  private final Path file;
+  private final ObjectMapper objectMapper;
+
+  public FileOutboxSink(Path file, ObjectMapper objectMapper) {
+    this.file = file;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public synchronized void publish(List<OutboxEvent> events) throws IOException {
+    try (var file = new FileOutputStream(this.file.toFile(), true);
+        var out = new BufferedOutputStream(file)) {
+      for (var event : events) {
+        out.write(objectMapper.writeValueAsBytes(new Line(event.getId(), event.getType(),
+            event.getAggregateType(), event.getAggregateId(), event.getCreatedAt().toString(),
+            objectMapper.readTree(event.getPayload()))));
+        out.write('\n');
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+  }
+
+  private record Line(Long id, String type, String aggregateType, Long aggregateId,
+                      String createdAt, Object payload) {
+  }
+}
@@ -0,0 +1,19 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs the events at debug level. Used when no other sink is configured.
+ */
+@Slf4j
+public class LoggingOutboxSink implements OutboxSink {
+
+  @Override
+  public void publish(List<OutboxEvent> events) {
+    if (log.isDebugEnabled()) {
+      events.forEach(event -> log.debug("{} {} {}: {}", event.getId(), event.getType(),
+          event.getAggregateId(), event.getPayload()));
+    }
+  }
+}
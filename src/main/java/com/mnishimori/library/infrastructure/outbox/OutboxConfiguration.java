@@ -0,0 +1,18 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OutboxConfiguration {
+
+  @Bean
+  public OutboxSink outboxSink(ObjectMapper objectMapper,
+      @Value("${library.outbox.file:}") String file) {
+    return file.isBlank() ? new LoggingOutboxSink() : new FileOutboxSink(Path.of(file),
+        objectMapper);
+  }
+}
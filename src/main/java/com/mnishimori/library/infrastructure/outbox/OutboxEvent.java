@@ -0,0 +1,43 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A domain event waiting to be published, written in the same transaction as the change it
+ * describes. Rows are deleted once the sink has accepted them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+  @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq",
+      allocationSize = 50)
+  private Long id;
+  @Column(nullable = false)
+  private String type;
+  @Column(nullable = false)
+  private String aggregateType;
+  @Column(nullable = false)
+  private Long aggregateId;
+  @Column(nullable = false, length = 4000)
+  private String payload;
+  @Column(nullable = false)
+  private Instant createdAt;
+}
@@ -0,0 +1,22 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  /**
+   * The oldest events no other transaction holds, locked until the current transaction ends. A
+   * lock timeout of -2 asks for {@code SKIP LOCKED}, so that relays pass over each other's rows
+   * instead of waiting for them.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+  List<OutboxEvent> findForUpdateByOrderById(Pageable pageable);
+}
@@ -0,0 +1,214 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * Drains the outbox in the background. A batch is sent as soon as it is full, or once its oldest
+ * event has waited for the linger time, and its rows are deleted only after the sink accepted
+ * it. Delivery is therefore at least once: a crash or a failed delete sends the batch again.
+ *
+ * <p>Every instance runs a relay. Each batch is claimed with {@code SELECT ... FOR UPDATE SKIP
+ * LOCKED} and sent and deleted in that same transaction, so the relays share the outbox instead
+ * of each sending every event, and a batch is offered again only once its transaction rolled
+ * back. The claim holds a connection while the sink runs. On databases without {@code SKIP
+ * LOCKED}, H2 among them, a relay waits for the rows of another one instead of skipping them.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+  private final OutboxEventRepository repository;
+  private final OutboxSink sink;
+  private final TransactionOperations transactions;
+  private final boolean enabled;
+  private final int batchSize;
+  private final Duration linger;
+  private final Duration retryDelay;
+
+  private final Counter published;
+  private final Counter failures;
+  private final Timer publishTime;
+  private final Timer deliveryLag;
+  private final DistributionSummary batchSizes;
+
+  private volatile Instant oldestPending;
+  private volatile boolean running;
+  private volatile Thread relay;
+
+  public OutboxRelay(OutboxEventRepository repository, OutboxSink sink,
+      TransactionOperations transactions, MeterRegistry registry,
+      @Value("${library.outbox.enabled:true}") boolean enabled,
+      @Value("${library.outbox.batch-size:100}") int batchSize,
+      @Value("${library.outbox.linger:200ms}") Duration linger,
+      @Value("${library.outbox.retry-delay:1s}") Duration retryDelay) {
+    this.repository = repository;
+    this.sink = sink;
+    this.transactions = transactions;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.linger = linger;
+    this.retryDelay = retryDelay;
+    this.published = Counter.builder("library.outbox.published")
+        .description("Events accepted by the outbox sink")
+        .register(registry);
+    this.failures = Counter.builder("library.outbox.failures")
+        .description("Batches the outbox sink rejected")
+        .register(registry);
+    this.publishTime = Timer.builder("library.outbox.publish")
+        .description("Time spent delivering a batch and deleting it from the outbox")
+        .register(registry);
+    this.deliveryLag = Timer.builder("library.outbox.delivery.lag")
+        .description("Time from writing an event to the outbox until the sink accepted it")
+        .register(registry);
+    this.batchSizes = DistributionSummary.builder("library.outbox.batch.size")
+        .description("Events per delivered batch")
+        .register(registry);
+    Gauge.builder("library.outbox.lag", this, OutboxRelay::lagSeconds)
+        .description("Age of the oldest event still waiting in the outbox")
+        .baseUnit("seconds")
+        .register(registry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    relay = new Thread(this::run, "outbox-relay");
+    relay.setDaemon(true);
+    relay.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    var thread = relay;
+    if (thread != null) {
+      // unparked rather than interrupted, an interrupt could break a connection in use
+      LockSupport.unpark(thread);
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  /**
+   * Publishes everything that is pending right now, regardless of the linger time, and returns
+   * how many events were delivered.
+   */
+  public int drain() throws Exception {
+    var total = 0;
+    int delivered;
+    do {
+      delivered = inTransaction(() -> {
+        var events = claim();
+        if (!events.isEmpty()) {
+          publish(events);
+        }
+        return events.size();
+      });
+      total += delivered;
+    } while (delivered == batchSize);
+    return total;
+  }
+
+  private void run() {
+    while (running) {
+      Duration wait;
+      try {
+        wait = relayOnce();
+      } catch (Exception e) {
+        failures.increment();
+        log.warn("Could not publish the outbox, retrying in {}", retryDelay, e);
+        wait = retryDelay;
+      }
+      if (!wait.isZero() && running) {
+        LockSupport.parkNanos(wait.toNanos());
+      }
+    }
+  }
+
+  private Duration relayOnce() throws Exception {
+    return inTransaction(() -> {
+      var events = claim();
+      if (events.isEmpty()) {
+        return linger;
+      }
+      var waited = Duration.between(events.get(0).getCreatedAt(), Instant.now());
+      if (events.size() < batchSize && waited.compareTo(linger) < 0) {
+        // the rows are released with the transaction, another relay may send them meanwhile
+        return linger.minus(waited);
+      }
+      publish(events);
+      return Duration.ZERO;
+    });
+  }
+
+  private List<OutboxEvent> claim() {
+    var events = repository.findForUpdateByOrderById(PageRequest.of(0, batchSize));
+    oldestPending = events.isEmpty() ? null : events.get(0).getCreatedAt();
+    return events;
+  }
+
+  /**
+   * Runs the work in a read-write transaction, which also reads from the primary when reads are
+   * replicated. An exception of the sink rolls the transaction back and is rethrown as it is.
+   */
+  private <T> T inTransaction(Callable<T> work) throws Exception {
+    try {
+      return transactions.execute(status -> {
+        try {
+          return work.call();
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new SinkFailure(e);
+        }
+      });
+    } catch (SinkFailure e) {
+      throw (Exception) e.getCause();
+    }
+  }
+
+  private void publish(List<OutboxEvent> events) throws Exception {
+    var start = System.nanoTime();
+    sink.publish(events);
+    repository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+    publishTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+    var now = Instant.now();
+    events.forEach(event -> deliveryLag.record(Duration.between(event.getCreatedAt(), now)));
+    published.increment(events.size());
+    batchSizes.record(events.size());
+    oldestPending = null;
+  }
+
+  private double lagSeconds() {
+    var oldest = oldestPending;
+    return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+  }
+
+  private static final class SinkFailure extends RuntimeException {
+
+    SinkFailure(Exception cause) {
+      super(cause);
+    }
+  }
+}
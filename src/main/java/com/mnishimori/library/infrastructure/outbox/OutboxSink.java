@@ -0,0 +1,13 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import java.util.List;
+
+/**
+ * Where the outbox relay delivers events. A batch counts as delivered only when this returns
+ * normally; after an exception the whole batch is offered again, so sinks must tolerate
+ * duplicates, for instance by the event id.
+ */
+public interface OutboxSink {
+
+  void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,50 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mnishimori.library.domain.event.BookChangedEvent;
+import com.mnishimori.library.domain.event.LoanCreatedEvent;
+import java.time.Instant;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Appends the domain events to the outbox just before the transaction that published them
+ * commits, so an event is stored if and only if its change is.
+ */
+@Component
+public class OutboxWriter {
+
+  private final OutboxEventRepository repository;
+  private final ObjectMapper objectMapper;
+
+  public OutboxWriter(OutboxEventRepository repository, ObjectMapper objectMapper) {
+    this.repository = repository;
+    this.objectMapper = objectMapper;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent event) {
+    append("BookChanged", "Book", event.bookId(), event);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onLoanCreated(LoanCreatedEvent event) {
+    append("LoanCreated", "Loan", event.loanId(), event);
+  }
+
+  private void append(String type, String aggregateType, Long aggregateId, Object event) {
+    try {
+      repository.save(OutboxEvent.builder()
+          .type(type)
+          .aggregateType(aggregateType)
+          .aggregateId(aggregateId)
+          .payload(objectMapper.writeValueAsString(event))
+          .createdAt(Instant.now())
+          .build());
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not write " + type + " to the outbox", e);
+    }
+  }
+}
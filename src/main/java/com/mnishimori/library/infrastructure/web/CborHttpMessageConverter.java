@@ -0,0 +1,18 @@
+package com.mnishimori.library.infrastructure.web;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes and reads {@code application/cbor} with the same Jackson configuration as the JSON
+ * responses. JSON stays the default, CBOR is only used when the client asks for it.
+ */
+@Component
+public class CborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+  public CborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    super(builder.factory(new CBORFactory()).build());
+  }
+}
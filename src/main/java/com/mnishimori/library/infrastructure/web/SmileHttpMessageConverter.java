@@ -0,0 +1,18 @@
+package com.mnishimori.library.infrastructure.web;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes and reads {@code application/x-jackson-smile} with the same Jackson configuration as the
+ * JSON responses. JSON stays the default, Smile is only used when the client asks for it.
+ */
+@Component
+public class SmileHttpMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+  public SmileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    super(builder.factory(new SmileFactory()).build());
+  }
+}
@@ -1,43 +1,91 @@
 package com.mnishimori.library.presentation;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.mnishimori.library.domain.model.Book;
 import com.mnishimori.library.domain.service.BookService;
 import com.mnishimori.library.exception.BusinessException;
+import com.mnishimori.library.presentation.cache.BookResponseCache;
+import com.mnishimori.library.presentation.cache.BookResponseCache.CachedBook;
+import com.mnishimori.library.presentation.dto.BookBatchItemOutputDto;
+import com.mnishimori.library.presentation.dto.BookCursorMapper;
+import com.mnishimori.library.presentation.dto.BookETag;
+import com.mnishimori.library.presentation.dto.BookFilterDto;
 import com.mnishimori.library.presentation.dto.BookInputDto;
+import com.mnishimori.library.presentation.dto.BookKeysetPageOutputDto;
 import com.mnishimori.library.presentation.dto.BookMapper;
 import com.mnishimori.library.presentation.dto.BookOutputDto;
+import com.mnishimori.library.presentation.dto.BookPatchDto;
+import com.mnishimori.library.presentation.exceptionhandler.PreconditionFailedException;
+import com.mnishimori.library.presentation.exceptionhandler.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
-  private BookService service;
+  private static final int MAX_KEYSET_SIZE = 2000;
+  private static final MediaType APPLICATION_SMILE =
+      MediaType.valueOf("application/x-jackson-smile");
+  private static final String VARY_ENCODED =
+      HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
 
-  @Autowired
-  private ModelMapper modelMapper;
+  private BookService service;
+  private Validator validator;
+  private ObjectMapper objectMapper;
+  private BookResponseCache responseCache;
+  private int importChunkSize;
 
-  public BookController(BookService service) {
+  public BookController(BookService service, Validator validator, ObjectMapper objectMapper,
+      BookResponseCache responseCache,
+      @Value("${library.import.chunk-size:500}") int importChunkSize) {
     this.service = service;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.responseCache = responseCache;
+    this.importChunkSize = importChunkSize;
   }
 
   @PostMapping
@@ -50,15 +98,73 @@ public class BookController {
     return BookMapper.to(savedBook);
   }
 
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public List<BookBatchItemOutputDto> createBatch(@RequestBody List<BookInputDto> dtos) {
+    var results = new ArrayList<BookBatchItemOutputDto>(dtos.size());
+    for (int offset = 0; offset < dtos.size(); offset += importChunkSize) {
+      var chunk = dtos.subList(offset, Math.min(offset + importChunkSize, dtos.size()));
+      results.addAll(importChunk(chunk, offset));
+    }
+    return results;
+  }
+
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public List<BookBatchItemOutputDto> createBatchFromStream(HttpServletRequest request)
+      throws IOException {
+    var results = new ArrayList<BookBatchItemOutputDto>();
+    var chunk = new ArrayList<BookInputDto>(importChunkSize);
+    try (MappingIterator<BookInputDto> lines = objectMapper.readerFor(BookInputDto.class)
+        .readValues(request.getInputStream())) {
+      while (lines.hasNextValue()) {
+        chunk.add(lines.nextValue());
+        if (chunk.size() == importChunkSize) {
+          results.addAll(importChunk(chunk, results.size()));
+          chunk.clear();
+        }
+      }
+      results.addAll(importChunk(chunk, results.size()));
+    } catch (JsonProcessingException e) {
+      results.addAll(importChunk(chunk, results.size()));
+      results.add(BookBatchItemOutputDto.failed(results.size(), "JSON inválido"));
+    }
+    return results;
+  }
+
+  @GetMapping("/export")
+  public void export(@RequestParam(defaultValue = "ndjson") String format,
+      HttpServletResponse response) throws IOException {
+    switch (format) {
+      case "ndjson" -> exportNdjson(response);
+      case "csv" -> exportCsv(response);
+      default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Formato de exportação inválido: " + format);
+    }
+  }
+
   @GetMapping("/{bookId}")
-  public BookOutputDto getById(@PathVariable Long bookId) {
+  public ResponseEntity<?> getById(@PathVariable Long bookId, WebRequest request,
+      HttpServletResponse response) {
+    var representation = representation(request);
+    var encoded = responseCache.isEnabled() && representation.equals(MediaType.APPLICATION_JSON);
+    if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+      // answered from the version alone, without loading and serializing the book
+      var version = service.findVersionById(bookId)
+          .orElseThrow(ResourceNotFoundException::new);
+      if (request.checkNotModified(BookETag.of(version, representation))) {
+        response.setHeader(HttpHeaders.VARY, encoded ? VARY_ENCODED : HttpHeaders.ACCEPT);
+        return null;
+      }
+    }
+    if (encoded) {
+      return encoded(responseCache.get(bookId, this::getBook), request);
+    }
     var book = getBook(bookId);
-    return BookMapper.to(book);
+    return withETag(book, representation);
   }
 
   @GetMapping
-  public Page<BookOutputDto> find(BookInputDto bookInputDto, Pageable pageable) {
-    var book = BookMapper.from(bookInputDto);
+  public Page<BookOutputDto> find(BookFilterDto filter, Pageable pageable) {
+    var book = BookMapper.from(filter);
     Page<Book> result = service.find(book, pageable);
     var books = result.getContent()
         .stream()
@@ -67,13 +173,39 @@ public class BookController {
     return new PageImpl<>(books, pageable, result.getTotalElements());
   }
 
+  @GetMapping(params = "after")
+  public BookKeysetPageOutputDto findAfter(BookFilterDto filter, @RequestParam String after,
+      @RequestParam(defaultValue = "20") int size, Sort sort) {
+    var book = BookMapper.from(filter);
+    var keyset = BookCursorMapper.from(after, sort);
+    var result = service.find(book, keyset, Math.max(1, Math.min(size, MAX_KEYSET_SIZE)));
+    return new BookKeysetPageOutputDto(BookMapper.toList(result.content()),
+        result.content().size(), BookCursorMapper.to(result.next()));
+  }
+
   @PutMapping("/{bookId}")
-  @ResponseStatus(HttpStatus.OK)
-  public BookOutputDto update(@PathVariable Long bookId, @RequestBody BookInputDto bookInputDto) {
+  public ResponseEntity<BookOutputDto> update(@PathVariable Long bookId,
+      @RequestBody @Valid BookInputDto bookInputDto,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      WebRequest request) {
     var book = getBook(bookId);
-    modelMapper.map(bookInputDto, book);
-    book = service.save(book);
-    return BookMapper.to(book);
+    checkIfMatch(ifMatch, book);
+    BookMapper.copy(bookInputDto, book);
+    book = service.update(book);
+    return withETag(book, representation(request));
+  }
+
+  @PatchMapping("/{bookId}")
+  public ResponseEntity<BookOutputDto> patch(@PathVariable Long bookId,
+      @RequestBody @Valid BookPatchDto bookPatchDto,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      WebRequest request) {
+    var book = getBook(bookId);
+    checkIfMatch(ifMatch, book);
+    if (BookMapper.patch(bookPatchDto, book)) {
+      book = service.update(book);
+    }
+    return withETag(book, representation(request));
   }
 
   @DeleteMapping("/{bookId}")
@@ -84,8 +216,189 @@ public class BookController {
   }
 
 
+  private void exportNdjson(HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books.ndjson");
+
+    var writer = objectMapper.writerFor(BookOutputDto.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (var generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+      generator.setRootValueSeparator(new SerializedString("\n"));
+      service.export(book -> {
+        try {
+          writer.writeValue(generator, BookMapper.to(book));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      generator.writeRaw('\n');
+    }
+  }
+
+  private void exportCsv(HttpServletResponse response) throws IOException {
+    response.setContentType("text/csv");
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books.csv");
+
+    var writer = new BufferedWriter(response.getWriter());
+    writer.write("id,title,author,isbn\n");
+    service.export(book -> {
+      try {
+        writer.write(String.valueOf(book.getId()));
+        writer.write(',');
+        writer.write(csvValue(book.getTitle()));
+        writer.write(',');
+        writer.write(csvValue(book.getAuthor()));
+        writer.write(',');
+        writer.write(csvValue(book.getIsbn()));
+        writer.write('\n');
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    writer.flush();
+  }
+
+  private static String csvValue(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+        && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private List<BookBatchItemOutputDto> importChunk(List<BookInputDto> chunk, int offset) {
+    var results = new BookBatchItemOutputDto[chunk.size()];
+    var books = new ArrayList<Book>(chunk.size());
+    var indexes = new ArrayList<Integer>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      var violations = validator.validate(chunk.get(i));
+      if (violations.isEmpty()) {
+        books.add(BookMapper.from(chunk.get(i)));
+        indexes.add(i);
+      } else {
+        var message = violations.stream()
+            .map(ConstraintViolation::getMessage)
+            .sorted()
+            .collect(Collectors.joining(", "));
+        results[i] = BookBatchItemOutputDto.failed(offset + i, message);
+      }
+    }
+
+    if (!books.isEmpty()) {
+      var imported = service.saveAll(books);
+      for (int i = 0; i < imported.size(); i++) {
+        var index = indexes.get(i);
+        var result = imported.get(i);
+        results[index] = result.isCreated()
+            ? BookBatchItemOutputDto.created(offset + index, BookMapper.to(result.book()))
+            : BookBatchItemOutputDto.failed(offset + index, result.error());
+      }
+    }
+    return Arrays.asList(results);
+  }
+
+  private static void checkIfMatch(String ifMatch, Book book) {
+    if (ifMatch != null && !BookETag.matches(ifMatch, book.getVersion())) {
+      throw new PreconditionFailedException();
+    }
+  }
+
+  /**
+   * The book in the given format, which is set on the response so that the converters can't pick
+   * another format than the one its tag was made for.
+   */
+  private static ResponseEntity<BookOutputDto> withETag(Book book, MediaType representation) {
+    var response = ResponseEntity.ok().contentType(representation).varyBy(HttpHeaders.ACCEPT);
+    if (book.getVersion() != null) {
+      response.eTag(BookETag.of(book.getVersion(), representation));
+    }
+    return response.body(BookMapper.to(book));
+  }
+
+  private static ResponseEntity<byte[]> encoded(CachedBook book, WebRequest request) {
+    var response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+        .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    if (book.gzip() == null) {
+      if (book.version() != null) {
+        response.eTag(BookETag.of(book.version()));
+      }
+      return response.body(book.json());
+    }
+    if (acceptsGzip(request)) {
+      // another representation of the same version, so its tag is weak
+      return response.eTag(BookETag.weak(book.version()))
+          .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+          .body(book.gzip());
+    }
+    return response.eTag(BookETag.of(book.version())).body(book.json());
+  }
+
+  /**
+   * The format a book is written in for the request: the binary format the client prefers, or
+   * JSON. Like the converters, the highest quality wins and a concrete type beats a wildcard.
+   */
+  private static MediaType representation(WebRequest request) {
+    var accept = request.getHeader(HttpHeaders.ACCEPT);
+    if (accept == null) {
+      return MediaType.APPLICATION_JSON;
+    }
+    try {
+      return MediaType.parseMediaTypes(accept).stream()
+          .filter(type -> type.getQualityValue() > 0)
+          .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+              .thenComparing(MediaType::isWildcardSubtype))
+          .map(BookController::format)
+          .filter(Objects::nonNull)
+          .findFirst()
+          .orElse(MediaType.APPLICATION_JSON);
+    } catch (InvalidMediaTypeException e) {
+      return MediaType.APPLICATION_JSON;
+    }
+  }
+
+  private static MediaType format(MediaType type) {
+    if (type.includes(MediaType.APPLICATION_JSON)) {
+      return MediaType.APPLICATION_JSON;
+    }
+    if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+      return MediaType.APPLICATION_CBOR;
+    }
+    if (type.isCompatibleWith(APPLICATION_SMILE)) {
+      return APPLICATION_SMILE;
+    }
+    return null;
+  }
+
+  private static boolean acceptsGzip(WebRequest request) {
+    var acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    return acceptEncoding != null && Arrays.stream(acceptEncoding.split(","))
+        .map(coding -> coding.split(";"))
+        .anyMatch(coding -> coding[0].trim().equalsIgnoreCase("gzip") && quality(coding) > 0);
+  }
+
+  /**
+   * The q parameter of a coding split on its semicolons, 1 when missing and 0 when malformed.
+   */
+  private static double quality(String[] coding) {
+    for (int i = 1; i < coding.length; i++) {
+      var parameter = coding[i].trim();
+      if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
   private Book getBook(Long bookId) {
     return service.findById(bookId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        .orElseThrow(ResourceNotFoundException::new);
   }
 }
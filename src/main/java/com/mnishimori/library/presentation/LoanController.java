@@ -3,13 +3,20 @@ package com.mnishimori.library.presentation;
 import com.mnishimori.library.domain.model.Loan;
 import com.mnishimori.library.domain.service.BookService;
 import com.mnishimori.library.domain.service.LoanService;
+import com.mnishimori.library.domain.stats.BorrowStats;
+import com.mnishimori.library.exception.BusinessException;
+import com.mnishimori.library.presentation.dto.BorrowStatsOutputDto;
+import com.mnishimori.library.presentation.dto.BorrowStatsOutputDto.AuthorCount;
+import com.mnishimori.library.presentation.dto.BorrowStatsOutputDto.BookCount;
 import com.mnishimori.library.presentation.dto.LoanDto;
 import com.mnishimori.library.presentation.dto.LoanMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -20,20 +27,36 @@ public class LoanController {
   private LoanService loanService;
   private BookService bookService;
   private ModelMapper modelMapper;
+  private BorrowStats borrowStats;
 
-  public LoanController(LoanService loanService, BookService bookService, ModelMapper modelMapper) {
+  public LoanController(LoanService loanService, BookService bookService, ModelMapper modelMapper,
+      BorrowStats borrowStats) {
     this.loanService = loanService;
     this.bookService = bookService;
     this.modelMapper = modelMapper;
+    this.borrowStats = borrowStats;
   }
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
   public Loan saveLoan(@RequestBody LoanDto loanDto){
-    var book = bookService.findByIsbn(loanDto.getIsbn());
+    var book = bookService.findByIsbn(loanDto.getIsbn())
+        .orElseThrow(() -> new BusinessException("Livro não encontrado"));
     var loan = LoanMapper.from(loanDto);
-    loan.setBook(book.get());
+    loan.setBook(book);
     return loanService.save(loan);
   }
 
+  @GetMapping("/stats/top")
+  public BorrowStatsOutputDto top(@RequestParam(defaultValue = "10") int k) {
+    var size = Math.max(1, Math.min(k, borrowStats.capacity()));
+    return new BorrowStatsOutputDto(
+        borrowStats.topBooks(size).stream()
+            .map(entry -> new BookCount(entry.key(), entry.count(), entry.error()))
+            .toList(),
+        borrowStats.topAuthors(size).stream()
+            .map(entry -> new AuthorCount(entry.key(), entry.count(), entry.error()))
+            .toList());
+  }
+
 }
@@ -0,0 +1,144 @@
+package com.mnishimori.library.presentation.admission;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrency limit that adapts to the latency it observes, additive increase and
+ * multiplicative decrease style. The limit is revised once per window of a limit's worth of
+ * requests, and only if at least half of it was in use during the window: a window whose average
+ * latency is over the tolerance times the baseline shrinks it by the backoff factor, a timely one
+ * grows it by one. A single slow request, or an endpoint that is barely used, leaves it alone.
+ *
+ * <p>The baseline is a slow average of the window averages, so a sustained slowdown is eventually
+ * accepted as the new normal, at a lower limit. Requests beyond the limit wait in a short queue,
+ * and are rejected once the queue is full or they waited for too long.
+ */
+public class AdaptiveConcurrencyLimit {
+
+  /**
+   * How a request got past the limit, if it did.
+   */
+  public enum Admission {
+    ADMITTED, QUEUED, SHED
+  }
+
+  // weight of a window in the baseline latency, roughly the last ten windows count
+  private static final double SMOOTHING = 0.1;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int queueSize;
+  private final long queueTimeout;
+  private final double tolerance;
+  private final double backoff;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private double limit;
+  private double baselineLatency;
+  private double windowLatency;
+  private int windowSamples;
+  private int windowPeak;
+  private int inFlight;
+  private int queued;
+
+  public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int queueSize,
+      Duration queueTimeout, double tolerance, double backoff) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Expected 1 <= min <= initial <= max limit, got "
+          + minLimit + ", " + initialLimit + " and " + maxLimit);
+    }
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.queueSize = queueSize;
+    this.queueTimeout = queueTimeout.toNanos();
+    this.tolerance = tolerance;
+    this.backoff = backoff;
+  }
+
+  /**
+   * Takes a slot, waiting in the queue if there is room in it. Every request that wasn't shed
+   * must give its slot back through {@link #release(long)}.
+   */
+  public Admission acquire() throws InterruptedException {
+    lock.lock();
+    try {
+      if (inFlight < (int) limit) {
+        take();
+        return Admission.ADMITTED;
+      }
+      if (queued >= queueSize) {
+        return Admission.SHED;
+      }
+      queued++;
+      try {
+        var remaining = queueTimeout;
+        while (inFlight >= (int) limit) {
+          if (remaining <= 0) {
+            return Admission.SHED;
+          }
+          remaining = released.awaitNanos(remaining);
+        }
+        take();
+        return Admission.QUEUED;
+      } finally {
+        queued--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release(long latencyNanos) {
+    lock.lock();
+    try {
+      inFlight--;
+      windowLatency += latencyNanos;
+      if (++windowSamples >= (int) limit) {
+        adapt();
+      }
+      // the limit may have grown by more than one slot, or shrunk, so wake everyone to recheck
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void take() {
+    inFlight++;
+    windowPeak = Math.max(windowPeak, inFlight);
+  }
+
+  private void adapt() {
+    var average = windowLatency / windowSamples;
+    var used = windowPeak * 2 >= limit;
+    if (baselineLatency == 0) {
+      baselineLatency = average;
+    } else {
+      if (used && average > tolerance * baselineLatency) {
+        limit = Math.max(minLimit, limit * backoff);
+      } else if (used) {
+        limit = Math.min(maxLimit, limit + 1);
+      }
+      baselineLatency += SMOOTHING * (average - baselineLatency);
+    }
+    windowLatency = 0;
+    windowSamples = 0;
+    windowPeak = inFlight;
+  }
+
+  public int limit() {
+    return (int) limit;
+  }
+
+  public int inFlight() {
+    return inFlight;
+  }
+
+  public int queued() {
+    return queued;
+  }
+}
@@ -0,0 +1,20 @@
+package com.mnishimori.library.presentation.admission;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdmissionControlConfiguration implements WebMvcConfigurer {
+
+  private final AdmissionControlInterceptor interceptor;
+
+  public AdmissionControlConfiguration(AdmissionControlInterceptor interceptor) {
+    this.interceptor = interceptor;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(interceptor).addPathPatterns("/api/books/**", "/api/loans/**");
+  }
+}
@@ -0,0 +1,131 @@
+package com.mnishimori.library.presentation.admission;
+
+import com.mnishimori.library.presentation.admission.AdaptiveConcurrencyLimit.Admission;
+import com.mnishimori.library.presentation.exceptionhandler.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admission control for the API: each endpoint, that is each controller method, gets its own
+ * {@link AdaptiveConcurrencyLimit}, so a slow search can't take the worker threads that cheap
+ * lookups need. Shed requests get a 503 with a {@code Retry-After} header.
+ *
+ * <p>Counts the requests that were admitted, those of them that had to wait in the queue first,
+ * and those that were shed ({@code library.admission.*}, tagged with the endpoint).
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+  private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+
+  private final MeterRegistry registry;
+  private final boolean enabled;
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int queueSize;
+  private final Duration queueTimeout;
+  private final double tolerance;
+  private final double backoff;
+  private final Duration retryAfter;
+  private final ConcurrentHashMap<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  public AdmissionControlInterceptor(MeterRegistry registry,
+      @Value("${library.admission.enabled:true}") boolean enabled,
+      @Value("${library.admission.initial-limit:20}") int initialLimit,
+      @Value("${library.admission.min-limit:2}") int minLimit,
+      @Value("${library.admission.max-limit:200}") int maxLimit,
+      @Value("${library.admission.queue-size:10}") int queueSize,
+      @Value("${library.admission.queue-timeout:50ms}") Duration queueTimeout,
+      @Value("${library.admission.tolerance:2.0}") double tolerance,
+      @Value("${library.admission.backoff:0.9}") double backoff,
+      @Value("${library.admission.retry-after:1s}") Duration retryAfter) {
+    this.registry = registry;
+    this.enabled = enabled;
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.queueSize = queueSize;
+    this.queueTimeout = queueTimeout;
+    this.tolerance = tolerance;
+    this.backoff = backoff;
+    this.retryAfter = retryAfter;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws Exception {
+    if (!enabled || !(handler instanceof HandlerMethod method)) {
+      return true;
+    }
+    var endpoint = endpoints.computeIfAbsent(method.getMethod(), this::endpoint);
+    Admission admission;
+    try {
+      admission = endpoint.limit.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      admission = Admission.SHED;
+    }
+    if (admission == Admission.SHED) {
+      endpoint.shed.increment();
+      throw new ServiceOverloadedException(retryAfter);
+    }
+    if (admission == Admission.QUEUED) {
+      endpoint.queued.increment();
+    }
+    endpoint.admitted.increment();
+    request.setAttribute(PERMIT, new Permit(endpoint.limit, System.nanoTime()));
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    if (request.getAttribute(PERMIT) instanceof Permit permit) {
+      request.removeAttribute(PERMIT);
+      permit.limit.release(System.nanoTime() - permit.started);
+    }
+  }
+
+  private Endpoint endpoint(Method method) {
+    var name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    var limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, queueSize,
+        queueTimeout, tolerance, backoff);
+    Gauge.builder("library.admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+        .description("Concurrent requests the endpoint currently admits")
+        .tag("endpoint", name)
+        .register(registry);
+    Gauge.builder("library.admission.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+        .description("Requests the endpoint is currently handling")
+        .tag("endpoint", name)
+        .register(registry);
+    return new Endpoint(limit,
+        counter("library.admission.admitted", "Requests admitted, queued or not", name),
+        counter("library.admission.queued", "Requests that waited in the queue", name),
+        counter("library.admission.shed", "Requests rejected with a 503", name));
+  }
+
+  private Counter counter(String meter, String description, String endpoint) {
+    return Counter.builder(meter)
+        .description(description)
+        .tag("endpoint", endpoint)
+        .register(registry);
+  }
+
+  private record Permit(AdaptiveConcurrencyLimit limit, long started) {
+  }
+
+  private record Endpoint(AdaptiveConcurrencyLimit limit, Counter admitted, Counter queued,
+      Counter shed) {
+  }
+}
@@ -0,0 +1,142 @@
+package com.mnishimori.library.presentation.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mnishimori.library.domain.cache.ReplicaLag;
+import com.mnishimori.library.domain.event.BookChangedEvent;
+import com.mnishimori.library.domain.event.BooksInvalidatedEvent;
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.presentation.dto.BookMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The JSON body of GET /api/books/{bookId}, already encoded, so that hot books are written
+ * without mapping and serializing them again. Entries are dropped when the book service, here
+ * or on another instance, reports a change to the book. A book read from a replica is only kept
+ * if no book changed within the {@link ReplicaLag}, since the replica may still serve the version
+ * that was just dropped. The cache is reported as {@code book.response}.
+ */
+@Component
+public class BookResponseCache {
+
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private final ObjectMapper objectMapper;
+  private final ReplicaLag replicaLag;
+  private final boolean enabled;
+  private final Cache<Long, CachedBook> cache;
+  private final AtomicLong invalidations = new AtomicLong();
+  // as if invalidated on startup, since another instance may have changed a book just before
+  private volatile long invalidatedAt = System.nanoTime();
+
+  public BookResponseCache(ObjectMapper objectMapper, ReplicaLag replicaLag,
+      MeterRegistry registry,
+      @Value("${library.cache.book-response.enabled:true}") boolean enabled,
+      @Value("${library.cache.book-response.maximum-weight:8MB}") DataSize maximumWeight) {
+    this.objectMapper = objectMapper;
+    this.replicaLag = replicaLag;
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maximumWeight.toBytes())
+        .weigher((Long id, CachedBook book) -> book.weight())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, "book.response");
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public CachedBook get(Long bookId, Function<Long, Book> loader) {
+    var cached = cache.getIfPresent(bookId);
+    if (cached != null) {
+      return cached;
+    }
+    // encoded outside of the cache's lock, like the ISBN cache, since the loader needs a connection
+    var epoch = invalidations.get();
+    var readAt = System.nanoTime();
+    var book = loader.apply(bookId);
+    var encoded = encode(book);
+    if (book.getVersion() != null && invalidations.get() == epoch
+        && replicaLag.covers(invalidatedAt, readAt)
+        && cache.asMap().putIfAbsent(bookId, encoded) == null
+        && invalidations.get() != epoch) {
+      // changed while being stored, so the encoded book may already be stale
+      cache.asMap().remove(bookId, encoded);
+    }
+    return encoded;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent event) {
+    invalidated();
+    cache.invalidate(event.bookId());
+  }
+
+  @EventListener
+  public void onBooksInvalidated(BooksInvalidatedEvent event) {
+    invalidated();
+    cache.invalidateAll(event.bookIds());
+  }
+
+  public void invalidateAll() {
+    invalidated();
+    cache.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private void invalidated() {
+    invalidatedAt = System.nanoTime();
+    invalidations.incrementAndGet();
+  }
+
+  private CachedBook encode(Book book) {
+    try {
+      var json = objectMapper.writeValueAsBytes(BookMapper.to(book));
+      var gzip = gzip(json);
+      return new CachedBook(book.getVersion(), json, gzip.length < json.length ? gzip : null);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not encode book " + book.getId(), e);
+    }
+  }
+
+  private static byte[] gzip(byte[] json) {
+    var bytes = new ByteArrayOutputStream(json.length);
+    try (var out = new GZIPOutputStream(bytes)) {
+      out.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * An encoded book. The gzip body is only kept when it is smaller than the JSON itself, which is
+   * rarely the case for books with short titles.
+   */
+  public record CachedBook(Long version, byte[] json, byte[] gzip) {
+
+    int weight() {
+      return ENTRY_OVERHEAD + json.length + (gzip == null ? 0 : gzip.length);
+    }
+  }
+}
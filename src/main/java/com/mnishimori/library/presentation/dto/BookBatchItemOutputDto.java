@@ -0,0 +1,13 @@
+package com.mnishimori.library.presentation.dto;
+
+public record BookBatchItemOutputDto(int index, boolean created, BookOutputDto book,
+                                     String message) {
+
+  public static BookBatchItemOutputDto created(int index, BookOutputDto book) {
+    return new BookBatchItemOutputDto(index, true, book, null);
+  }
+
+  public static BookBatchItemOutputDto failed(int index, String message) {
+    return new BookBatchItemOutputDto(index, false, null, message);
+  }
+}
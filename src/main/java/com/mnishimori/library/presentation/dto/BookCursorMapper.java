@@ -0,0 +1,44 @@
+package com.mnishimori.library.presentation.dto;
+
+import com.mnishimori.library.domain.repository.BookKeyset;
+import com.mnishimori.library.exception.BusinessException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+
+public class BookCursorMapper {
+
+  private static final String SEPARATOR = "\n";
+
+  public static String to(BookKeyset keyset) {
+    if (keyset == null) {
+      return null;
+    }
+    var cursor = String.join(SEPARATOR, keyset.property(), keyset.direction().name(),
+        String.valueOf(keyset.id()), keyset.value() == null ? "" : keyset.value());
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static BookKeyset from(String cursor, Sort sort) {
+    if (cursor == null || cursor.isBlank()) {
+      return first(sort);
+    }
+    try {
+      var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+          .split(SEPARATOR, 4);
+      return new BookKeyset(parts[0], Sort.Direction.valueOf(parts[1]), parts[3],
+          Long.valueOf(parts[2]));
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      throw new BusinessException("Cursor inválido");
+    }
+  }
+
+  private static BookKeyset first(Sort sort) {
+    var order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+    if (!BookKeyset.SORTABLE_PROPERTIES.contains(order.getProperty())) {
+      throw new BusinessException("Ordenação inválida: " + order.getProperty());
+    }
+    return BookKeyset.first(order.getProperty(), order.getDirection());
+  }
+}
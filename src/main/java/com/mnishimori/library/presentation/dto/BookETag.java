@@ -0,0 +1,50 @@
+package com.mnishimori.library.presentation.dto;
+
+import java.util.Arrays;
+import org.springframework.http.MediaType;
+
+/**
+ * Entity tags of a book, derived from its version column.
+ */
+public class BookETag {
+
+  public static String of(long version) {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * Tag of the version written in the given format. JSON keeps the plain version and the binary
+   * formats add their subtype, so that a cache never answers one format with another's body.
+   */
+  public static String of(long version, MediaType format) {
+    if (format.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+      return of(version);
+    }
+    return "\"" + version + "-" + format.getSubtype() + "\"";
+  }
+
+  /**
+   * Tag of an encoded representation of the version, such as its gzip body.
+   */
+  public static String weak(long version) {
+    return "W/" + of(version);
+  }
+
+  /**
+   * Whether an If-Match header matches the version, comparing strongly as RFC 9110 requires. The
+   * tags of every format of the version match, since they all describe the same state.
+   */
+  public static boolean matches(String ifMatch, Long version) {
+    if (ifMatch.trim().equals("*")) {
+      return true;
+    }
+    if (version == null) {
+      return false;
+    }
+    var current = of(version);
+    var prefix = "\"" + version + "-";
+    return Arrays.stream(ifMatch.split(","))
+        .map(String::trim)
+        .anyMatch(tag -> tag.equals(current) || tag.startsWith(prefix) && tag.endsWith("\""));
+  }
+}
@@ -0,0 +1,9 @@
+package com.mnishimori.library.presentation.dto;
+
+/**
+ * Query parameters of the book search. Unlike {@link BookInputDto}, it has a single constructor,
+ * so the parameters are bound through it instead of an empty instance.
+ */
+public record BookFilterDto(String title, String author, String isbn) {
+
+}
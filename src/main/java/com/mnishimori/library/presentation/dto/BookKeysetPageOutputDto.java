@@ -0,0 +1,7 @@
+package com.mnishimori.library.presentation.dto;
+
+import java.util.List;
+
+public record BookKeysetPageOutputDto(List<BookOutputDto> content, int size, String next) {
+
+}
@@ -14,6 +14,43 @@ public class BookMapper {
         .build();
   }
 
+  public static Book from(BookFilterDto bookFilterDto) {
+    return Book.builder()
+        .title(bookFilterDto.title())
+        .author(bookFilterDto.author())
+        .isbn(bookFilterDto.isbn())
+        .build();
+  }
+
+  /**
+   * Copies every field of the request onto the book, as PUT replaces the representation.
+   */
+  public static void copy(BookInputDto bookInputDto, Book book) {
+    book.setTitle(bookInputDto.title());
+    book.setAuthor(bookInputDto.author());
+    book.setIsbn(bookInputDto.isbn());
+  }
+
+  /**
+   * Applies the fields present in the request and tells whether any of them changed the book.
+   */
+  public static boolean patch(BookPatchDto bookPatchDto, Book book) {
+    var changed = false;
+    if (bookPatchDto.title() != null && !bookPatchDto.title().equals(book.getTitle())) {
+      book.setTitle(bookPatchDto.title());
+      changed = true;
+    }
+    if (bookPatchDto.author() != null && !bookPatchDto.author().equals(book.getAuthor())) {
+      book.setAuthor(bookPatchDto.author());
+      changed = true;
+    }
+    if (bookPatchDto.isbn() != null && !bookPatchDto.isbn().equals(book.getIsbn())) {
+      book.setIsbn(bookPatchDto.isbn());
+      changed = true;
+    }
+    return changed;
+  }
+
   public static BookOutputDto to(Book book) {
     return new BookOutputDto(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
   }
@@ -0,0 +1,14 @@
+package com.mnishimori.library.presentation.dto;
+
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Partial update of a book: absent (null) fields are left untouched, present ones can't be blank.
+ */
+public record BookPatchDto(
+    @Pattern(regexp = NOT_BLANK, message = "Informe o título") String title,
+    @Pattern(regexp = NOT_BLANK, message = "Informe o autor") String author,
+    @Pattern(regexp = NOT_BLANK, message = "Informe o isbn") String isbn) {
+
+  static final String NOT_BLANK = "(?s).*\\S.*";
+}
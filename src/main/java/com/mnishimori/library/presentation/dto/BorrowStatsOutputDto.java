@@ -0,0 +1,15 @@
+package com.mnishimori.library.presentation.dto;
+
+import java.util.List;
+
+/**
+ * Most borrowed books and authors. Counts may overestimate by at most {@code error} loans.
+ */
+public record BorrowStatsOutputDto(List<BookCount> books, List<AuthorCount> authors) {
+
+  public record BookCount(Long bookId, long loans, long error) {
+  }
+
+  public record AuthorCount(String author, long loans, long error) {
+  }
+}
@@ -1,8 +1,11 @@
 package com.mnishimori.library.presentation.exceptionhandler;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mnishimori.library.exception.BusinessException;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +13,13 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -26,37 +32,51 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @RestControllerAdvice
 public class ApplicationControllerAdvice extends ResponseEntityExceptionHandler {
 
+  private static final String MAX_UPLOAD_SIZE_EXCEEDED = "O tamanho do arquivo que você está "
+      + "tentando fazer upload excedeu o tamanho máximo permitido de 10MB.";
+  private static final String INTERNAL_ERROR =
+      "Erro interno no servidor. Por favor, comunique o administrador do sistema.";
+  private static final String CONCURRENT_UPDATE =
+      "O recurso foi alterado ao mesmo tempo por outra requisição. Tente novamente.";
+  private static final int MAXIMUM_CACHED = 1000;
+
   @Autowired
   private MessageSource messageSource;
 
+  private final Cache<MessageKey, String> messages = Caffeine.newBuilder()
+      .maximumSize(MAXIMUM_CACHED)
+      .build();
+
+  private final Cache<ApiErrorKey, ApiError> apiErrors = Caffeine.newBuilder()
+      .maximumSize(MAXIMUM_CACHED)
+      .build();
+
   @ExceptionHandler({MaxUploadSizeExceededException.class})
   public ResponseEntity<Object> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex,
       WebRequest request) {
     HttpStatus status = HttpStatus.PAYLOAD_TOO_LARGE;
 
-    String detail = String.format(
-        "O tamanho do arquivo que você está tentando fazer upload excedeu o tamanho máximo permitido de 10MB.",
-        ex.getMessage());
-
-    return handleExceptionInternal(ex, detail, new HttpHeaders(), status, request);
+    return handleExceptionInternal(ex, apiError(status, MAX_UPLOAD_SIZE_EXCEEDED),
+        new HttpHeaders(), status, request);
   }
 
 
+  @Override
   protected ResponseEntity<Object> handleNoHandlerFoundException(
       NoHandlerFoundException ex, HttpHeaders headers,
-      HttpStatus status, WebRequest request) {
+      HttpStatusCode status, WebRequest request) {
 
-    String detail = String.format("O recurso %s não foi encontrado.",
-        ex.getRequestURL());
+    String detail = "O recurso " + ex.getRequestURL() + " não foi encontrado.";
 
     return handleExceptionInternal(ex, detail,
         new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
   }
 
 
+  @Override
   protected ResponseEntity<Object> handleTypeMismatch(
       TypeMismatchException ex, HttpHeaders headers,
-      HttpStatus status, WebRequest request) {
+      HttpStatusCode status, WebRequest request) {
 
     if (ex instanceof MethodArgumentTypeMismatchException) {
       return handleMethodArgumentTypeMismatch(
@@ -66,21 +86,23 @@ public class ApplicationControllerAdvice extends ResponseEntityExceptionHandler
     return super.handleTypeMismatch(ex, headers, status, request);
   }
 
+  @Override
   protected ResponseEntity<Object> handleMethodArgumentNotValid(
       MethodArgumentNotValidException ex, HttpHeaders headers,
-      HttpStatus status, WebRequest request) {
+      HttpStatusCode status, WebRequest request) {
 
     return handleValidationInternal(ex, ex.getBindingResult(), new HttpHeaders(),
         HttpStatus.BAD_REQUEST, request);
   }
 
   public ResponseEntity<Object> handleValidationInternal(Exception ex, BindingResult bindingResult,
-      HttpHeaders headers, HttpStatus status, WebRequest request) {
+      HttpHeaders headers, HttpStatusCode status, WebRequest request) {
 
+    Locale locale = LocaleContextHolder.getLocale();
     List<ApiError.Object> problemObjects = bindingResult.getAllErrors()
         .stream()
         .map(objectError -> {
-          String message = messageSource.getMessage(objectError, LocaleContextHolder.getLocale());
+          String message = resolveMessage(objectError, locale);
 
           String name = objectError.getObjectName();
 
@@ -107,15 +129,15 @@ public class ApplicationControllerAdvice extends ResponseEntityExceptionHandler
   public ResponseEntity<Object> handleUncaught(Exception ex, WebRequest request) {
     HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
 
-    String detail = "Erro interno no servidor. Por favor, comunique o administrador do sistema.";
-
-    return handleExceptionInternal(ex, detail, new HttpHeaders(), status, request);
+    return handleExceptionInternal(ex, apiError(status, INTERNAL_ERROR), new HttpHeaders(),
+        status, request);
   }
 
 
+  @Override
   protected ResponseEntity<Object> handleExceptionInternal(
       Exception ex, @Nullable Object body, HttpHeaders headers,
-      HttpStatus status, WebRequest request) {
+      HttpStatusCode status, WebRequest request) {
 
     body = this.generateBody(body, status);
 
@@ -125,11 +147,11 @@ public class ApplicationControllerAdvice extends ResponseEntityExceptionHandler
 
   private ResponseEntity<Object> handleMethodArgumentTypeMismatch(
       MethodArgumentTypeMismatchException ex, HttpHeaders headers,
-      HttpStatus status, WebRequest request) {
+      HttpStatusCode status, WebRequest request) {
 
-    String detail = String.format("O parâmetro '%s' recebeu '%s', "
-            + "valor inválido. Corrija para o parâmetro correto (%s).",
-        ex.getName(), ex.getValue(), ex.getRequiredType().getSimpleName());
+    String detail = "O parâmetro '" + ex.getName() + "' recebeu '" + ex.getValue()
+        + "', valor inválido. Corrija para o parâmetro correto ("
+        + ex.getRequiredType().getSimpleName() + ").";
 
     return handleExceptionInternal(ex, detail, headers, status, request);
   }
@@ -143,23 +165,53 @@ public class ApplicationControllerAdvice extends ResponseEntityExceptionHandler
         .map(ref -> ref.getFieldName())
         .collect(Collectors.joining("."));
 
-    String detail = String.format("O campo '%s' recebeu o valor '%s', "
-            + "inválido. Corrija com o valor no formato correto (%s).",
-        path, ex.getValue(), ex.getTargetType().getSimpleName());
+    String detail = "O campo '" + path + "' recebeu o valor '" + ex.getValue()
+        + "', inválido. Corrija com o valor no formato correto ("
+        + ex.getTargetType().getSimpleName() + ").";
 
     return handleExceptionInternal(ex, detail, headers, status, request);
   }
 
+  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+  public ResponseEntity<?> handleOptimisticLockingFailure(
+      ObjectOptimisticLockingFailureException e, WebRequest request) {
+
+    HttpStatus status = HttpStatus.CONFLICT;
+
+    return handleExceptionInternal(e, apiError(status, CONCURRENT_UPDATE), new HttpHeaders(),
+        status, request);
+  }
+
+  @ExceptionHandler(PreconditionFailedException.class)
+  public ResponseEntity<?> handlePreconditionFailed(PreconditionFailedException e,
+      WebRequest request) {
+
+    HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+
+    return handleExceptionInternal(e, apiError(status, e.getReason()), new HttpHeaders(), status,
+        request);
+  }
+
   @ExceptionHandler(BusinessException.class)
   public ResponseEntity<?> catchNegocioException(BusinessException e,
       WebRequest request) {
 
     HttpStatus status = HttpStatus.BAD_REQUEST;
 
-    return handleExceptionInternal(e, e.getMessage(), new HttpHeaders(),
+    return handleExceptionInternal(e, apiError(status, e.getMessage()), new HttpHeaders(),
         status, request);
   }
 
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<?> handleServiceOverloaded(ServiceOverloadedException e,
+      WebRequest request) {
+
+    HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+
+    return handleExceptionInternal(e, apiError(status, e.getReason()), e.getHeaders(), status,
+        request);
+  }
+
   private String getErrorBeanValidationMessage(List<ApiError.Object> problemObjects) {
     String userMessage = "";
     String userMessages = "";
@@ -182,27 +234,45 @@ public class ApplicationControllerAdvice extends ResponseEntityExceptionHandler
   }
 
 
-  private Object generateBody(Object body, HttpStatus status) {
-    if (body == null || (body != null && body instanceof String)) {
-      String exceptionMessage = "";
-
-      if (body == null) {
-        exceptionMessage = status.getReasonPhrase();
-      } else {
-        exceptionMessage = (String) body;
-      }
-
-      body = this.createApiError(status, exceptionMessage);
+  private Object generateBody(Object body, HttpStatusCode status) {
+    if (body == null) {
+      HttpStatus knownStatus = HttpStatus.resolve(status.value());
+      body = apiError(status, knownStatus != null ? knownStatus.getReasonPhrase() : "");
+    } else if (body instanceof String) {
+      body = this.createApiError(status, (String) body);
     }
     return body;
   }
 
 
-  private ApiError createApiError(HttpStatus status, String detail) {
+  private String resolveMessage(ObjectError objectError, Locale locale) {
+    String[] codes = objectError.getCodes();
+    MessageKey key = new MessageKey(locale, codes != null && codes.length > 0 ? codes[0] : null,
+        objectError.getDefaultMessage());
+    return messages.get(key, k -> messageSource.getMessage(objectError, locale));
+  }
+
+
+  /**
+   * The body for a message that doesn't depend on the request, built once and then shared.
+   */
+  private ApiError apiError(HttpStatusCode status, String detail) {
+    return apiErrors.get(new ApiErrorKey(status.value(), detail),
+        key -> createApiError(status, detail));
+  }
+
+
+  private ApiError createApiError(HttpStatusCode status, String detail) {
 
     return ApiError.builder()
         .status_code(status.value())
         .message(detail)
         .build();
   }
+
+  private record MessageKey(Locale locale, String code, String defaultMessage) {
+  }
+
+  private record ApiErrorKey(int status, String detail) {
+  }
 }
@@ -0,0 +1,24 @@
+package com.mnishimori.library.presentation.exceptionhandler;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A 412 for a conditional request whose {@code If-Match} no longer matches the resource. Like
+ * {@link ResourceNotFoundException} it doesn't fill in a stack trace, since a stale client is an
+ * expected outcome.
+ */
+public class PreconditionFailedException extends ResponseStatusException {
+
+  private static final String MESSAGE =
+      "O recurso foi alterado por outra requisição. Consulte-o novamente.";
+
+  public PreconditionFailedException() {
+    super(HttpStatus.PRECONDITION_FAILED, MESSAGE);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
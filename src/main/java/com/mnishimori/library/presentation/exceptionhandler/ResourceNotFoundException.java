@@ -0,0 +1,20 @@
+package com.mnishimori.library.presentation.exceptionhandler;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A 404 for a resource that doesn't exist. Unknown ids are an expected outcome, so this doesn't
+ * fill in a stack trace.
+ */
+public class ResourceNotFoundException extends ResponseStatusException {
+
+  public ResourceNotFoundException() {
+    super(HttpStatus.NOT_FOUND);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,38 @@
+package com.mnishimori.library.presentation.exceptionhandler;
+
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A 503 for a request shed by admission control, telling the client when to try again. Like
+ * {@link ResourceNotFoundException} it doesn't fill in a stack trace, since it is thrown the most
+ * when the server can least afford it.
+ */
+public class ServiceOverloadedException extends ResponseStatusException {
+
+  private static final String MESSAGE =
+      "O serviço está sobrecarregado. Tente novamente em instantes.";
+
+  private final Duration retryAfter;
+
+  public ServiceOverloadedException(Duration retryAfter) {
+    super(HttpStatus.SERVICE_UNAVAILABLE, MESSAGE);
+    this.retryAfter = retryAfter;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    var headers = new HttpHeaders();
+    // in whole seconds, rounded up so that a client never retries too early
+    var seconds = retryAfter.plusMillis(999).toSeconds();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds)));
+    return headers;
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
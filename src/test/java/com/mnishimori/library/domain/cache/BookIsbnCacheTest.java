@@ -0,0 +1,139 @@
+package com.mnishimori.library.domain.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.library.domain.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BookIsbnCacheTest {
+
+  private SimpleMeterRegistry registry;
+  private BookIsbnCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    cache = new BookIsbnCache(ReplicaLag.NONE, registry, 100,
+        Duration.ofMinutes(10));
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void shouldLoadAnIsbnOnlyOnce() {
+    cache.get("123", this::load);
+    var book = cache.get("123", this::load);
+
+    assertThat(book).map(Book::getTitle).contains("As aventuras");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void shouldReportItsHitsAndMisses() {
+    cache.get("123", this::load);
+    cache.get("123", this::load);
+
+    assertThat(registry.get("cache.gets").tags("cache", "book.isbn", "result", "hit")
+        .functionCounter().count()).isEqualTo(1);
+    assertThat(registry.get("cache.gets").tags("cache", "book.isbn", "result", "miss")
+        .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotKeepABookInvalidatedWhileItWasLoading() {
+    cache.get("123", isbn -> {
+      var book = load(isbn);
+      cache.invalidate(book.get());
+      return book;
+    });
+
+    cache.get("123", this::load);
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldKeepABookReadFromAReplicaOnlyOnceTheReplicaLagPassed() {
+    var lag = new AtomicReference<>(Duration.ofHours(1));
+    cache = new BookIsbnCache(lag::get, registry, 100, Duration.ofMinutes(10));
+
+    cache.get("123", this::load);
+    cache.get("123", this::load);
+    lag.set(Duration.ZERO);
+    cache.get("123", this::load);
+    cache.get("123", this::load);
+
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  void shouldInvalidateWhileAnotherThreadIsLoading() throws Exception {
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var loader = CompletableFuture.runAsync(() -> cache.get("123", isbn -> {
+      loading.countDown();
+      await(release);
+      return load(isbn);
+    }));
+    loading.await();
+
+    var invalidation = CompletableFuture.runAsync(
+        () -> cache.invalidate(Book.builder().id(1L).isbn("123").build()));
+
+    invalidation.get(5, TimeUnit.SECONDS);
+    release.countDown();
+    loader.get(5, TimeUnit.SECONDS);
+    cache.get("123", this::load);
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldDropTheEntryOfABookWhoseIsbnChanged() {
+    cache.get("123", this::load);
+
+    cache.invalidate(Book.builder().id(1L).isbn("456").build());
+    cache.get("123", this::load);
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldDropTheBooksChangedElsewhereAndTheAbsentIsbns() {
+    cache.get("123", this::load);
+    cache.get("456", isbn -> {
+      loads.incrementAndGet();
+      return Optional.empty();
+    });
+    cache.get("789", isbn -> Optional.of(Book.builder().id(2L).isbn(isbn).build()));
+
+    cache.invalidateBooks(List.of(1L));
+
+    assertThat(cache.size()).isEqualTo(1);
+    cache.get("789", this::load);
+    assertThat(loads).hasValue(2);
+  }
+
+  private Optional<Book> load(String isbn) {
+    loads.incrementAndGet();
+    return Optional.of(Book.builder().id(1L).title("As aventuras").author("Artur").isbn(isbn)
+        .build());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.mnishimori.library.domain.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mnishimori.library.domain.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.unit.DataSize;
+
+class BookSearchCacheTest {
+
+  private SimpleMeterRegistry registry;
+  private BookSearchCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    cache = new BookSearchCache(ReplicaLag.NONE, registry,
+        DataSize.ofMegabytes(1));
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void shouldSearchOnlyOnceForTheSameProbeAndPage() {
+    cache.get(probe("Aventuras"), PageRequest.of(0, 10), this::load);
+    var page = cache.get(probe("aVENTURAS"), PageRequest.of(0, 10), this::load);
+
+    assertThat(page.getContent()).extracting(Book::getTitle).containsExactly("As aventuras");
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void shouldReportItsHitsAndMisses() {
+    cache.get(probe("Aventuras"), PageRequest.of(0, 10), this::load);
+    cache.get(probe("Aventuras"), PageRequest.of(0, 10), this::load);
+
+    assertThat(registry.get("cache.gets").tags("cache", "book.search", "result", "hit")
+        .functionCounter().count()).isEqualTo(1);
+    assertThat(registry.get("cache.gets").tags("cache", "book.search", "result", "miss")
+        .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldSearchAgainForAnotherPageOrSort() {
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+    cache.get(probe("aventuras"), PageRequest.of(1, 10), this::load);
+    cache.get(probe("aventuras"), PageRequest.of(0, 10, Sort.by("title")), this::load);
+
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  void shouldNotShareBooksBetweenCallers() {
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load).getContent().get(0)
+        .setTitle("Alterado");
+
+    var page = cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+
+    assertThat(page.getContent().get(0).getTitle()).isEqualTo("As aventuras");
+  }
+
+  @Test
+  void shouldSearchAgainAfterInvalidation() {
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+    cache.invalidateAll();
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldKeepASearchReadFromAReplicaOnlyOnceTheReplicaLagPassed() {
+    var lag = new AtomicReference<>(Duration.ofHours(1));
+    cache = new BookSearchCache(lag::get, registry, DataSize.ofMegabytes(1));
+
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+    lag.set(Duration.ZERO);
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  void shouldNotKeepAFailedSearch() {
+    assertThatThrownBy(() -> cache.get(probe("aventuras"), PageRequest.of(0, 10), () -> {
+      throw new IllegalStateException("falhou");
+    })).isInstanceOf(IllegalStateException.class);
+
+    cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load);
+
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void shouldLetConcurrentCallersWaitForTheSameSearch() throws Exception {
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first = CompletableFuture.supplyAsync(
+        () -> cache.get(probe("aventuras"), PageRequest.of(0, 10), () -> {
+          loading.countDown();
+          await(release);
+          return load();
+        }));
+    loading.await();
+
+    var others = List.of(
+        CompletableFuture.supplyAsync(
+            () -> cache.get(probe("aventuras"), PageRequest.of(0, 10), this::load)),
+        CompletableFuture.supplyAsync(
+            () -> cache.get(probe("AVENTURAS"), PageRequest.of(0, 10), this::load)));
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(1);
+    for (var other : others) {
+      assertThat(other.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(1);
+    }
+    assertThat(loads).hasValue(1);
+  }
+
+  private Page<Book> load() {
+    loads.incrementAndGet();
+    var book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123").build();
+    return new PageImpl<>(List.of(book), PageRequest.of(0, 10), 1);
+  }
+
+  private static Book probe(String title) {
+    return Book.builder().title(title).build();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.mnishimori.library.domain.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.JobCheckpoint;
+import com.mnishimori.library.domain.model.Loan;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.repository.JobCheckpointRepository;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = {
+    "library.loans.overdue.loan-days=14",
+    "library.loans.overdue.daily-fine=0.50",
+    "library.loans.overdue.chunk-size=2",
+    "library.loans.overdue.parallelism=2"})
+class OverdueLoanJobTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2024, 3, 31);
+
+  @Autowired
+  private OverdueLoanJob job;
+  @Autowired
+  private BookRepository bookRepository;
+  @Autowired
+  private LoanRepository loanRepository;
+  @Autowired
+  private JobCheckpointRepository checkpoints;
+
+  private int books;
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll();
+    bookRepository.deleteAll();
+    checkpoints.deleteAll();
+  }
+
+  @Test
+  void shouldFineOnlyTheActiveLoansThatAreLate() {
+    var onTime = lend(10, false);
+    var late = lend(20, false);
+    var returned = lend(30, true);
+    var veryLate = lend(30, false);
+    for (int i = 0; i < 5; i++) {
+      lend(15, false);
+    }
+
+    var result = job.run(TODAY);
+
+    assertThat(fineOf(onTime)).isNull();
+    assertThat(fineOf(late)).isEqualByComparingTo("3.00");
+    assertThat(fineOf(returned)).isNull();
+    assertThat(fineOf(veryLate)).isEqualByComparingTo("8.00");
+    assertThat(result.scanned()).isEqualTo(8);
+    assertThat(result.overdue()).isEqualTo(7);
+    assertThat(result.updated()).isEqualTo(7);
+    assertThat(result.chunks()).isGreaterThan(1);
+    assertThat(checkpoints.findById(OverdueLoanJob.NAME))
+        .hasValueSatisfying(checkpoint -> assertThat(checkpoint.getFinished()).isTrue());
+  }
+
+  @Test
+  void shouldOnlyWriteTheFinesThatChanged() {
+    lend(20, false);
+    lend(30, false);
+    job.run(TODAY);
+
+    var again = job.run(TODAY);
+    var nextDay = job.run(TODAY.plusDays(1));
+
+    assertThat(again.overdue()).isEqualTo(2);
+    assertThat(again.updated()).isZero();
+    assertThat(nextDay.updated()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldResumeAfterTheCheckpointOfAnUnfinishedRun() {
+    var before = lend(20, false);
+    var after = lend(20, false);
+    checkpoints.save(JobCheckpoint.builder()
+        .job(OverdueLoanJob.NAME)
+        .runDate(TODAY)
+        .lastId(before.getId())
+        .finished(false)
+        .updatedAt(Instant.now())
+        .build());
+
+    var result = job.run(TODAY);
+
+    assertThat(result.scanned()).isEqualTo(1);
+    assertThat(fineOf(before)).isNull();
+    assertThat(fineOf(after)).isEqualByComparingTo("3.00");
+  }
+
+  @Test
+  void shouldStartOverWhenTheCheckpointIsFromAnotherDay() {
+    var loan = lend(20, false);
+    checkpoints.save(JobCheckpoint.builder()
+        .job(OverdueLoanJob.NAME)
+        .runDate(TODAY.minusDays(1))
+        .lastId(loan.getId())
+        .finished(false)
+        .updatedAt(Instant.now())
+        .build());
+
+    job.run(TODAY);
+
+    assertThat(fineOf(loan)).isEqualByComparingTo("3.00");
+  }
+
+  @Test
+  void shouldNotRunWhileAnotherInstanceHoldsTheCheckpoint() {
+    var loan = lend(20, false);
+    checkpoints.save(JobCheckpoint.builder()
+        .job(OverdueLoanJob.NAME)
+        .runDate(TODAY)
+        .lastId(0L)
+        .finished(false)
+        .updatedAt(Instant.now())
+        .owner("another-instance")
+        .leaseUntil(Instant.now().plus(Duration.ofHours(1)))
+        .build());
+
+    assertThatThrownBy(() -> job.run(TODAY)).isInstanceOf(IllegalStateException.class);
+    job.runScheduled();
+
+    assertThat(fineOf(loan)).isNull();
+    assertThat(checkpoints.findById(OverdueLoanJob.NAME))
+        .hasValueSatisfying(checkpoint -> assertThat(checkpoint.getOwner())
+            .isEqualTo("another-instance"));
+  }
+
+  @Test
+  void shouldTakeOverTheCheckpointOfAnInstanceWhoseLeaseExpired() {
+    var before = lend(20, false);
+    var after = lend(20, false);
+    checkpoints.save(JobCheckpoint.builder()
+        .job(OverdueLoanJob.NAME)
+        .runDate(TODAY)
+        .lastId(before.getId())
+        .finished(false)
+        .updatedAt(Instant.now())
+        .owner("another-instance")
+        .leaseUntil(Instant.now().minusSeconds(1))
+        .build());
+
+    var result = job.run(TODAY);
+
+    assertThat(result.scanned()).isEqualTo(1);
+    assertThat(fineOf(after)).isEqualByComparingTo("3.00");
+    assertThat(checkpoints.findById(OverdueLoanJob.NAME))
+        .hasValueSatisfying(checkpoint -> {
+          assertThat(checkpoint.getFinished()).isTrue();
+          assertThat(checkpoint.getOwner()).isNull();
+        });
+  }
+
+  @Test
+  void shouldComputeTheFineFromTheDaysLate() {
+    assertThat(job.fine(TODAY.minusDays(14), TODAY)).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(job.fine(TODAY.minusDays(15), TODAY)).isEqualByComparingTo("0.50");
+    assertThat(job.fine(null, TODAY)).isEqualByComparingTo(BigDecimal.ZERO);
+  }
+
+  private Loan lend(int daysAgo, boolean returned) {
+    var book = bookRepository.save(Book.builder()
+        .title("As aventuras").author("Artur").isbn("overdue-" + books++).build());
+    return loanRepository.save(Loan.builder()
+        .customer("Fulano")
+        .book(book)
+        .loanDate(TODAY.minusDays(daysAgo))
+        .returned(returned)
+        .build());
+  }
+
+  private BigDecimal fineOf(Loan loan) {
+    return loanRepository.findById(loan.getId()).orElseThrow().getFine();
+  }
+}
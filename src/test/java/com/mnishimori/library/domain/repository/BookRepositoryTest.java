@@ -1,13 +1,18 @@
 package com.mnishimori.library.domain.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.mnishimori.library.domain.model.Book;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -44,6 +49,55 @@ class BookRepositoryTest {
     assertThat(isbnExists).isEqualTo(false);
   }
 
+  @Test
+  void shouldReturnOnlyTheIsbnsThatExist(){
+    entityManager.persist(Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+    entityManager.persist(Book.builder().title("Outro livro").author("Artur").isbn("456").build());
+
+    var existingIsbns = repository.findExistingIsbns(List.of("123", "456", "789"));
+
+    assertThat(existingIsbns).containsExactlyInAnyOrder("123", "456");
+  }
+
+  @Test
+  void shouldStreamTheCatalogOrderedById(){
+    var first = entityManager.persist(
+        Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+    var second = entityManager.persist(
+        Book.builder().title("Outro livro").author("Artur").isbn("456").build());
+
+    try (var books = repository.streamAll()) {
+      assertThat(books.map(Book::getId)).containsExactly(first.getId(), second.getId());
+    }
+  }
+
+  @Test
+  void shouldSeekPagesOrderedByKeyAndId(){
+    var a1 = entityManager.persist(Book.builder().title("A").author("Artur").isbn("1").build());
+    var b1 = entityManager.persist(Book.builder().title("B").author("Artur").isbn("2").build());
+    var a2 = entityManager.persist(Book.builder().title("A").author("Artur").isbn("3").build());
+    entityManager.persist(Book.builder().title("C").author("Maria").isbn("4").build());
+    var example = Example.of(Book.builder().author("Artur").build());
+
+    var firstPage = repository.findAfter(example, BookKeyset.first("title", Direction.ASC), 2);
+    var secondPage = repository.findAfter(example,
+        new BookKeyset("title", Direction.ASC, "A", a2.getId()), 2);
+
+    assertThat(firstPage).containsExactly(a1, a2);
+    assertThat(secondPage).containsExactly(b1);
+  }
+
+  @Test
+  void shouldSeekTheFirstPageWithoutAFilter(){
+    var a = entityManager.persist(Book.builder().title("A").author("Artur").isbn("1").build());
+    var b = entityManager.persist(Book.builder().title("B").author("Maria").isbn("2").build());
+
+    var firstPage = repository.findAfter(Example.of(Book.builder().build()),
+        BookKeyset.first("title", Direction.ASC), 2);
+
+    assertThat(firstPage).containsExactly(a, b);
+  }
+
   @Test
   void shouldReturnABookWhenExistsABookWithId(){
     var book = Book.builder().title("As aventuras").author("Artur").isbn("123456").build();
@@ -76,5 +130,25 @@ class BookRepositoryTest {
     assertThat(bookDeleted).isNull();
   }
 
+  @Test
+  void shouldFindOnlyTheVersionOfABook(){
+    var book = entityManager.persistFlushFind(
+        Book.builder().title("As aventuras").author("Artur").isbn("123456").build());
+
+    assertThat(repository.findVersionById(book.getId())).contains(book.getVersion());
+    assertThat(repository.findVersionById(book.getId() + 1)).isEmpty();
+  }
 
-}
\ No newline at end of file
+  @Test
+  void shouldRejectTheUpdateOfAStaleBook(){
+    var book = entityManager.persistFlushFind(
+        Book.builder().title("As aventuras").author("Artur").isbn("123456").build());
+    var stale = book.toBuilder().title("Título antigo").build();
+    book.setTitle("Título novo");
+    entityManager.flush();
+    entityManager.clear();
+
+    assertThatThrownBy(() -> repository.saveAndFlush(stale))
+        .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+  }
+}
@@ -0,0 +1,70 @@
+package com.mnishimori.library.domain.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.Loan;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class LoanRepositoryTest {
+
+  private final TestEntityManager entityManager;
+  private final LoanRepository repository;
+
+  @Autowired
+  public LoanRepositoryTest(TestEntityManager testEntityManager, LoanRepository repository) {
+    this.entityManager = testEntityManager;
+    this.repository = repository;
+  }
+
+  @Test
+  void shouldSaveALoanAsNotReturned() {
+    var book = entityManager.persist(createNewBook());
+
+    var loan = repository.save(createNewLoan(book));
+
+    assertThat(loan.getId()).isNotNull();
+    assertThat(loan.getReturned()).isFalse();
+  }
+
+  @Test
+  void shouldReturnTrueWhenTheBookHasAnActiveLoan() {
+    var book = entityManager.persist(createNewBook());
+    entityManager.persist(createNewLoan(book));
+
+    assertThat(repository.existsByBookAndReturned(book, false)).isTrue();
+    assertThat(repository.existsByBookAndReturned(book, true)).isFalse();
+  }
+
+  @Test
+  void shouldReturnFalseWhenAllLoansOfTheBookWereReturned() {
+    var book = entityManager.persist(createNewBook());
+    var loan = createNewLoan(book);
+    loan.setReturned(true);
+    entityManager.persist(loan);
+
+    assertThat(repository.existsByBookAndReturned(book, false)).isFalse();
+  }
+
+  private static Loan createNewLoan(Book book) {
+    return Loan.builder()
+        .customer("Fulano")
+        .book(book)
+        .loanDate(LocalDate.now())
+        .build();
+  }
+
+  private static Book createNewBook() {
+    return Book.builder().title("As aventuras").author("Artur").isbn("123456").build();
+  }
+}
@@ -0,0 +1,116 @@
+package com.mnishimori.library.domain.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.library.domain.model.Book;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class BookSearchIndexTest {
+
+  private BookSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new BookSearchIndex(true);
+    index.startLoading();
+    index.load(List.of(
+        createBook(1L, "As aventuras", "Artur", "111"),
+        createBook(2L, "Aventuras no mar", "Maria", "222"),
+        createBook(3L, "Outro livro", "Artur Silva", "333")));
+    index.finishLoading();
+  }
+
+  @Test
+  void shouldFindBooksContainingTheTitleIgnoringCase() {
+    var ids = index.search(Book.builder().title("VENTURA").build(), Sort.unsorted());
+
+    assertThat(ids).contains(List.of(1L, 2L));
+  }
+
+  @Test
+  void shouldCombineTitleAuthorAndIsbnFilters() {
+    var probe = Book.builder().title("aventuras").author("art").isbn("11").build();
+
+    assertThat(index.search(probe, Sort.unsorted())).contains(List.of(1L));
+  }
+
+  @Test
+  void shouldMatchTermsShorterThanATrigram() {
+    var ids = index.search(Book.builder().author("ar").build(), Sort.unsorted());
+
+    assertThat(ids).contains(List.of(1L, 2L, 3L));
+  }
+
+  @Test
+  void shouldSortMatchesById() {
+    var ids = index.search(Book.builder().author("ar").build(), Sort.by("id").descending());
+
+    assertThat(ids).contains(List.of(3L, 2L, 1L));
+  }
+
+  @Test
+  void shouldLeaveSortsByTextToTheDatabase() {
+    var probe = Book.builder().author("ar").build();
+
+    assertThat(index.search(probe, Sort.by("title"))).isEmpty();
+    assertThat(index.search(probe, Sort.by("author", "id"))).isEmpty();
+  }
+
+  @Test
+  void shouldCompactTheTombstonesOfABookUpdatedManyTimes() {
+    for (int i = 0; i < 10_000; i++) {
+      index.put(createBook(1L, "As aventuras " + i, "Artur", "111"));
+    }
+
+    assertThat(index.allocated()).isLessThanOrEqualTo(1024);
+    assertThat(index.search(Book.builder().title("aventuras").build(), Sort.unsorted()))
+        .contains(List.of(1L, 2L));
+    assertThat(index.search(Book.builder().title("aventuras 9999").build(), Sort.unsorted()))
+        .contains(List.of(1L));
+    assertThat(index.search(Book.builder().title("aventuras 5000").build(), Sort.unsorted()))
+        .contains(List.of());
+  }
+
+  @Test
+  void shouldReflectUpdatesAndDeletes() {
+    index.put(createBook(1L, "Livro renomeado", "Artur", "111"));
+    index.remove(2L);
+
+    assertThat(index.search(Book.builder().title("aventuras").build(), Sort.unsorted()))
+        .contains(List.of());
+    assertThat(index.search(Book.builder().title("renomeado").build(), Sort.unsorted()))
+        .contains(List.of(1L));
+  }
+
+  @Test
+  void shouldKeepWritesMadeWhileLoading() {
+    var loading = new BookSearchIndex(true);
+    loading.startLoading();
+    loading.put(createBook(1L, "Versão nova", "Artur", "111"));
+    loading.load(List.of(createBook(1L, "Versão antiga", "Artur", "111")));
+    loading.finishLoading();
+
+    assertThat(loading.search(Book.builder().title("nova").build(), Sort.unsorted()))
+        .contains(List.of(1L));
+    assertThat(loading.search(Book.builder().title("antiga").build(), Sort.unsorted()))
+        .contains(List.of());
+  }
+
+  @Test
+  void shouldNotAnswerWhenNotReadyOrWithoutTextFilters() {
+    var notLoaded = new BookSearchIndex(true);
+
+    assertThat(notLoaded.search(Book.builder().title("aventuras").build(), Sort.unsorted()))
+        .isEmpty();
+    assertThat(index.search(Book.builder().isbn("111").build(), Sort.unsorted())).isEmpty();
+    assertThat(index.search(Book.builder().title("aventuras").build(), Sort.by("unknown")))
+        .isEmpty();
+  }
+
+  private static Book createBook(Long id, String title, String author, String isbn) {
+    return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+  }
+}
@@ -0,0 +1,122 @@
+package com.mnishimori.library.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.Loan;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.exception.BusinessException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+class BookServiceIntegrationTest {
+
+  private static final int THREADS = 16;
+
+  @Autowired
+  private BookService service;
+
+  @Autowired
+  private BookRepository repository;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll();
+    repository.deleteAll();
+  }
+
+  @Test
+  void shouldCreateOnlyOneBookWhenTheSameIsbnIsSavedConcurrently() throws Exception {
+    var executor = Executors.newFixedThreadPool(THREADS);
+    var start = new CountDownLatch(1);
+    var futures = new ArrayList<Future<Book>>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        Callable<Book> create = () -> {
+          start.await();
+          return service.save(createNewBook());
+        };
+        futures.add(executor.submit(create));
+      }
+      start.countDown();
+
+      var created = 0;
+      var rejected = 0;
+      for (var future : futures) {
+        try {
+          future.get();
+          created++;
+        } catch (ExecutionException e) {
+          assertThat(e.getCause())
+              .isInstanceOf(BusinessException.class)
+              .hasMessage("ISBN já cadastrado");
+          rejected++;
+        }
+      }
+
+      assertThat(created).isEqualTo(1);
+      assertThat(rejected).isEqualTo(THREADS - 1);
+      assertThat(repository.count()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldRejectADuplicatedIsbnOnSave() {
+    service.save(createNewBook());
+
+    var duplicated = createNewBook();
+
+    assertThatThrownBy(() -> service.save(duplicated))
+        .isInstanceOf(BusinessException.class)
+        .hasMessage("ISBN já cadastrado");
+  }
+
+  @Test
+  void shouldNotReportATitleTooLongAsADuplicatedIsbn() {
+    var book = createNewBook();
+    book.setTitle("As aventuras ".repeat(30));
+
+    assertThatThrownBy(() -> service.save(book))
+        .isInstanceOf(DataIntegrityViolationException.class);
+  }
+
+  @Test
+  void shouldRejectTheDeletionOfABookWithLoans() {
+    var book = service.save(createNewBook());
+    loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now())
+        .returned(true).build());
+
+    assertThatThrownBy(() -> service.delete(book.getId()))
+        .isInstanceOf(BusinessException.class)
+        .hasMessage("Livro possui empréstimos");
+  }
+
+  private static Book createNewBook() {
+    return Book.builder()
+        .title("As aventuras")
+        .author("Artur")
+        .isbn("123456")
+        .build();
+  }
+}
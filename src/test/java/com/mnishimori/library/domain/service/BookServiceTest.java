@@ -4,26 +4,43 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.mnishimori.library.domain.cache.BookIsbnCache;
+import com.mnishimori.library.domain.cache.BookSearchCache;
+import com.mnishimori.library.domain.cache.ReplicaLag;
+import com.mnishimori.library.domain.event.BookChangedEvent;
 import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
 import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.search.BookSearchIndex;
 import com.mnishimori.library.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.AdditionalAnswers;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.unit.DataSize;
 
 
 @ExtendWith(SpringExtension.class)
@@ -31,19 +48,28 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 class BookServiceTest {
 
   private BookService service;
+  private BookSearchIndex searchIndex;
+  private List<Object> events;
 
   @MockBean
   private BookRepository repository;
 
   @BeforeEach
   public void setUp() {
-    this.service = new BookServiceImpl(repository);
+    this.searchIndex = new BookSearchIndex(true);
+    this.events = new ArrayList<>();
+    var transactions = TransactionOperations.withoutTransaction();
+    var registry = new SimpleMeterRegistry();
+    this.service = new BookServiceImpl(repository,
+        new BookIsbnCache(ReplicaLag.NONE, registry, 100, Duration.ofMinutes(1)),
+        new BookSearchCache(ReplicaLag.NONE, registry, DataSize.ofMegabytes(1)), searchIndex,
+        events::add, transactions);
   }
 
   @Test
   public void shouldSaveABook() {
     var book = createNewBook();
-    when(repository.save(book)).then(AdditionalAnswers.returnsFirstArg());
+    when(repository.saveAndFlush(book)).then(AdditionalAnswers.returnsFirstArg());
 
     var savedBook = service.save(book);
 
@@ -57,7 +83,7 @@ class BookServiceTest {
     var book = createNewBook();
     book.setId(1L);
     var bookToSave = createNewBook();
-    when(service.findByIsbn(bookToSave.getIsbn())).thenReturn(Optional.of(book));
+    when(repository.findByIsbn(bookToSave.getIsbn())).thenReturn(Optional.of(book));
 
     assertThatThrownBy(() -> service.checkIfIsbnAlreadyExists(bookToSave))
         .isInstanceOf(BusinessException.class)
@@ -66,6 +92,63 @@ class BookServiceTest {
     verify(repository, Mockito.never()).save(book);
   }
 
+  @Test
+  public void shouldNotReportOtherViolationsAsADuplicatedIsbn() {
+    var book = createNewBook();
+    var violation = new DataIntegrityViolationException("NULL not allowed for column \"TITLE\"");
+    when(repository.saveAndFlush(book)).thenThrow(violation);
+
+    assertThatThrownBy(() -> service.save(book)).isSameAs(violation);
+  }
+
+  @Test
+  public void shouldThrowBusinessExceptionWhenSaveViolatesUniqueIsbn() {
+    var book = createNewBook();
+    when(repository.saveAndFlush(book))
+        .thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
+
+    assertThatThrownBy(() -> service.save(book))
+        .isInstanceOf(BusinessException.class)
+        .hasMessage("ISBN já cadastrado");
+    verify(repository, Mockito.never()).findByIsbn(book.getIsbn());
+  }
+
+  @Test
+  public void shouldSaveAChunkOfBooksCheckingDuplicatesOnce() {
+    var newBook = Book.builder().title("Novo").author("Autor").isbn("111").build();
+    var existingBook = Book.builder().title("Existente").author("Autor").isbn("222").build();
+    var repeatedBook = Book.builder().title("Repetido").author("Autor").isbn("111").build();
+    when(repository.findExistingIsbns(any())).thenReturn(Set.of("222"));
+
+    var results = service.saveAll(List.of(newBook, existingBook, repeatedBook));
+
+    assertThat(results).hasSize(3);
+    assertThat(results.get(0).isCreated()).isTrue();
+    assertThat(results.get(0).book()).isSameAs(newBook);
+    assertThat(results.get(1).isCreated()).isFalse();
+    assertThat(results.get(1).error()).isEqualTo("ISBN já cadastrado");
+    assertThat(results.get(2).isCreated()).isFalse();
+    verify(repository, times(1)).findExistingIsbns(any());
+    verify(repository).saveAll(List.of(newBook));
+  }
+
+  @Test
+  public void shouldSaveBooksOneByOneWhenTheChunkViolatesUniqueIsbn() {
+    var firstBook = Book.builder().title("Primeiro").author("Autor").isbn("111").build();
+    var secondBook = Book.builder().title("Segundo").author("Autor").isbn("222").build();
+    when(repository.findExistingIsbns(any())).thenReturn(Set.of());
+    when(repository.saveAll(any())).thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
+    when(repository.saveAndFlush(firstBook)).then(AdditionalAnswers.returnsFirstArg());
+    when(repository.saveAndFlush(secondBook))
+        .thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
+
+    var results = service.saveAll(List.of(firstBook, secondBook));
+
+    assertThat(results.get(0).isCreated()).isTrue();
+    assertThat(results.get(1).isCreated()).isFalse();
+    assertThat(results.get(1).error()).isEqualTo("ISBN já cadastrado");
+  }
+
   @Test
   public void shouldFindABookById() {
     var book = createNewBook();
@@ -121,6 +204,35 @@ class BookServiceTest {
         .hasMessage("Livro não encontrado");
   }
 
+  @Test
+  public void shouldServeRepeatedIsbnLookupsFromCache() {
+    var book = createNewBook();
+    book.setId(1L);
+    when(repository.findByIsbn(book.getIsbn()))
+        .thenReturn(Optional.of(book));
+
+    service.findByIsbn(book.getIsbn());
+    service.findByIsbnRequired(book.getIsbn());
+    var bookFound = service.findByIsbn(book.getIsbn());
+
+    assertThat(bookFound.get()).isEqualTo(book);
+    assertThat(bookFound.get()).isNotSameAs(book);
+    verify(repository, times(1)).findByIsbn(book.getIsbn());
+  }
+
+  @Test
+  public void shouldInvalidateCachedIsbnWhenABookIsSaved() {
+    var book = createNewBook();
+    when(repository.findByIsbn(book.getIsbn())).thenReturn(Optional.empty());
+    when(repository.saveAndFlush(book)).then(AdditionalAnswers.returnsFirstArg());
+
+    assertThat(service.findByIsbn(book.getIsbn())).isEmpty();
+    service.save(book);
+    when(repository.findByIsbn(book.getIsbn())).thenReturn(Optional.of(book));
+
+    assertThat(service.findByIsbn(book.getIsbn())).isPresent();
+  }
+
   @Test
   public void shouldUpdateAValidBook(){
     var book = createNewBook();
@@ -181,6 +293,32 @@ class BookServiceTest {
     verify(repository).delete(book);
   }
 
+  @Test
+  public void shouldPublishAChangeForEveryWrittenBook() {
+    var book = createNewBook();
+    book.setId(1L);
+    when(repository.saveAndFlush(book)).then(AdditionalAnswers.returnsFirstArg());
+    when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+    service.save(book);
+    service.update(book);
+    service.delete(1L);
+
+    assertThat(events).containsExactly(new BookChangedEvent(1L), new BookChangedEvent(1L),
+        new BookChangedEvent(1L));
+  }
+
+  @Test
+  public void shouldNotReportOtherViolationsOnDeleteAsLoans() {
+    var book = createNewBook();
+    book.setId(1L);
+    var violation = new DataIntegrityViolationException("fk_other_table");
+    when(repository.findById(1L)).thenReturn(Optional.of(book));
+    Mockito.doThrow(violation).when(repository).delete(book);
+
+    assertThatThrownBy(() -> service.delete(1L)).isSameAs(violation);
+  }
+
   @Test
   public void shouldThrowIllegalArgumentExceptionWhenBookIdIsnull() {
     Long bookId = null;
@@ -224,6 +362,69 @@ class BookServiceTest {
     assertThat(results.getPageable().getPageSize()).isEqualTo(10);
   }
 
+  @Test
+  public void shouldSearchAgainOnlyAfterABookIsSaved() {
+    var book = createNewBook();
+    var pageRequest = PageRequest.of(0, 10);
+    when(repository.findAll(any(Example.class), any(PageRequest.class)))
+        .thenReturn(new PageImpl<>(List.of(book), pageRequest, 1));
+    when(repository.saveAndFlush(book)).then(AdditionalAnswers.returnsFirstArg());
+
+    service.find(Book.builder().title("aventuras").build(), pageRequest);
+    service.find(Book.builder().title("AVENTURAS").build(), pageRequest);
+    verify(repository, times(1)).findAll(any(Example.class), any(PageRequest.class));
+
+    service.save(book);
+    service.find(Book.builder().title("aventuras").build(), pageRequest);
+    verify(repository, times(2)).findAll(any(Example.class), any(PageRequest.class));
+  }
+
+  @Test
+  public void shouldReturnTheNextKeysetWhenThereAreMoreBooks() {
+    var first = Book.builder().id(1L).title("A").build();
+    var second = Book.builder().id(2L).title("B").build();
+    var third = Book.builder().id(3L).title("C").build();
+    var keyset = BookKeyset.first("title", Direction.ASC);
+    when(repository.findAfter(any(Example.class), any(BookKeyset.class), anyInt()))
+        .thenReturn(new ArrayList<>(List.of(first, second, third)));
+
+    var result = service.find(new Book(), keyset, 2);
+
+    assertThat(result.content()).containsExactly(first, second);
+    assertThat(result.next()).isEqualTo(new BookKeyset("title", Direction.ASC, "B", 2L));
+    verify(repository).findAfter(any(Example.class), any(BookKeyset.class), Mockito.eq(3));
+  }
+
+  @Test
+  public void shouldNotReturnANextKeysetOnTheLastPage() {
+    var keyset = new BookKeyset("id", Direction.ASC, null, 10L);
+    when(repository.findAfter(any(Example.class), any(BookKeyset.class), anyInt()))
+        .thenReturn(List.of(Book.builder().id(11L).build()));
+
+    var result = service.find(new Book(), keyset, 2);
+
+    assertThat(result.content()).hasSize(1);
+    assertThat(result.hasNext()).isFalse();
+  }
+
+  @Test
+  public void shouldFindBooksThroughTheSearchIndexWhenItIsReady() {
+    var first = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("1").build();
+    var second = Book.builder().id(2L).title("Aventuras no mar").author("Maria").isbn("2")
+        .build();
+    searchIndex.startLoading();
+    searchIndex.load(List.of(first, second,
+        Book.builder().id(3L).title("Outro livro").author("Artur").isbn("3").build()));
+    searchIndex.finishLoading();
+    when(repository.findAllById(List.of(2L))).thenReturn(List.of(second));
+
+    var probe = Book.builder().title("AVENTURA").build();
+    var results = service.find(probe, PageRequest.of(1, 1));
+
+    assertThat(results.getTotalElements()).isEqualTo(2);
+    assertThat(results.getContent()).containsExactly(second);
+    verify(repository, Mockito.never()).findAll(any(Example.class), any(PageRequest.class));
+  }
 
   private static Book createNewBook() {
     return Book.builder()
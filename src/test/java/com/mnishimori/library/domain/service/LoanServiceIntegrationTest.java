@@ -0,0 +1,113 @@
+package com.mnishimori.library.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.Loan;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.exception.BusinessException;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+@Slf4j
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+class LoanServiceIntegrationTest {
+
+  private static final int THREADS = 16;
+  private static final int ATTEMPTS_PER_THREAD = 50;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private LoanService loanService;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll();
+    bookRepository.deleteAll();
+  }
+
+  @Test
+  void shouldLendABookOnlyOnceUnderConcurrentCheckouts() throws Exception {
+    var isbn = bookService.save(
+        Book.builder().title("As aventuras").author("Artur").isbn("123456").build()).getIsbn();
+
+    var executor = Executors.newFixedThreadPool(THREADS);
+    var start = new CountDownLatch(1);
+    var futures = new ArrayList<Future<int[]>>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        var customer = "Cliente " + i;
+        futures.add(executor.submit(() -> {
+          start.await();
+          var outcome = new int[2];
+          for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+            try {
+              var loan = Loan.builder().customer(customer)
+                  .book(bookService.findByIsbnRequired(isbn)).build();
+              loanService.save(loan);
+              outcome[0]++;
+            } catch (BusinessException e) {
+              outcome[1]++;
+            }
+          }
+          return outcome;
+        }));
+      }
+      var begin = System.nanoTime();
+      start.countDown();
+
+      var lent = 0;
+      var rejected = 0;
+      for (var future : futures) {
+        var outcome = future.get();
+        lent += outcome[0];
+        rejected += outcome[1];
+      }
+      var seconds = (System.nanoTime() - begin) / 1e9;
+      log.info("{} checkouts of one ISBN from {} threads in {} s ({} checkouts/s)",
+          lent + rejected, THREADS, String.format("%.3f", seconds),
+          String.format("%.0f", (lent + rejected) / seconds));
+
+      assertThat(lent).isEqualTo(1);
+      assertThat(rejected).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - 1);
+      var book = bookService.findByIsbnRequired(isbn);
+      assertThat(loanRepository.existsByBookAndReturned(book, false)).isTrue();
+      assertThat(loanRepository.count()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldLendABookAgainAfterItIsReturned() {
+    var book = bookService.save(
+        Book.builder().title("As aventuras").author("Artur").isbn("654321").build());
+    var loan = loanService.save(Loan.builder().customer("Fulano").book(book).build());
+
+    loan.setReturned(true);
+    loanRepository.save(loan);
+    var secondLoan = loanService.save(Loan.builder().customer("Beltrano").book(book).build());
+
+    assertThat(secondLoan.getId()).isNotNull();
+    assertThat(secondLoan.getLoanDate()).isNotNull();
+  }
+}
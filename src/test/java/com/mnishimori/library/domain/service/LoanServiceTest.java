@@ -1,20 +1,29 @@
 package com.mnishimori.library.domain.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.mnishimori.library.domain.event.LoanCreatedEvent;
 import com.mnishimori.library.domain.model.Book;
 import com.mnishimori.library.domain.model.Loan;
 import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.exception.BusinessException;
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.AdditionalAnswers;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionOperations;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -23,20 +32,58 @@ class LoanServiceTest {
   @MockBean
   private LoanRepository repository;
   private LoanService service;
+  private List<Object> events;
 
   @BeforeEach
   void setUp() {
-    service = new LoanServiceImpl(repository);
+    events = new ArrayList<>();
+    service = new LoanServiceImpl(repository, events::add,
+        TransactionOperations.withoutTransaction());
   }
 
   @Test
   void shouldSaveALoan() {
     var loan = createNewLoan();
-    when(repository.save(loan)).then(AdditionalAnswers.returnsFirstArg());
+    when(repository.saveAndFlush(loan)).then(AdditionalAnswers.returnsFirstArg());
 
     var loanSaved = service.save(loan);
 
     assertThat(loan).isSameAs(loanSaved);
+    assertThat(events).containsExactly(new LoanCreatedEvent(loan.getId(),
+        loan.getBook().getId(), loan.getBook().getAuthor(), loan.getCustomer(),
+        loan.getLoanDate()));
+  }
+
+  @Test
+  void shouldThrowBusinessExceptionWhenTheBookIsAlreadyLoaned() {
+    var loan = createNewLoan();
+    when(repository.saveAndFlush(loan))
+        .thenThrow(new DataIntegrityViolationException("uk_loan_active_book"));
+
+    assertThatThrownBy(() -> service.save(loan))
+        .isInstanceOf(BusinessException.class)
+        .hasMessage("Livro já emprestado");
+  }
+
+  @Test
+  void shouldNotReportOtherViolationsAsALoanedBook() {
+    var loan = createNewLoan();
+    var violation = new DataIntegrityViolationException("Referential integrity constraint "
+        + "violation: \"FK_LOAN_BOOK\"");
+    when(repository.saveAndFlush(loan)).thenThrow(violation);
+
+    assertThatThrownBy(() -> service.save(loan)).isSameAs(violation);
+  }
+
+  @Test
+  void shouldRejectALoanWithoutABook() {
+    var loan = createNewLoan();
+    loan.setBook(null);
+
+    assertThatThrownBy(() -> service.save(loan))
+        .isInstanceOf(BusinessException.class)
+        .hasMessage("Informe o livro do empréstimo");
+    verify(repository, never()).saveAndFlush(any());
   }
 
   @Test
@@ -45,7 +92,7 @@ class LoanServiceTest {
     loan.getBook().setId(1L);
     loan.setId(1L);
 
-    when(repository.findByBookAndReturned(loan.getBook(), false)).thenReturn(Optional.of(loan));
+    when(repository.existsByBookAndReturned(loan.getBook(), false)).thenReturn(true);
 
     var bookAlreadyLoaned = service.isBookAlreadyLoaned(loan.getBook());
 
@@ -58,7 +105,7 @@ class LoanServiceTest {
     loan.getBook().setId(1L);
     loan.setId(1L);
 
-    when(repository.findByBookAndReturned(loan.getBook(), true)).thenReturn(Optional.of(loan));
+    when(repository.existsByBookAndReturned(loan.getBook(), true)).thenReturn(true);
 
     var bookAlreadyLoaned = service.isBookAlreadyLoaned(loan.getBook());
 
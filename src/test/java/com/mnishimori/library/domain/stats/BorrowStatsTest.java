@@ -0,0 +1,118 @@
+package com.mnishimori.library.domain.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.Loan;
+import com.mnishimori.library.domain.repository.AuthorBorrowStatsRepository;
+import com.mnishimori.library.domain.repository.BookBorrowStatsRepository;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.domain.service.LoanService;
+import com.mnishimori.library.domain.stats.SpaceSaving.Entry;
+import java.time.LocalDate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = {
+    "library.outbox.enabled=false",
+    "library.stats.flush-interval=PT1H",
+    "library.stats.rebuild.chunk-size=2",
+    "library.stats.rebuild.parallelism=2"})
+class BorrowStatsTest {
+
+  @Autowired
+  private BorrowStats borrowStats;
+  @Autowired
+  private LoanService loanService;
+  @Autowired
+  private BookRepository bookRepository;
+  @Autowired
+  private LoanRepository loanRepository;
+  @Autowired
+  private BookBorrowStatsRepository bookStats;
+  @Autowired
+  private AuthorBorrowStatsRepository authorStats;
+
+  private int books;
+
+  @BeforeEach
+  void setUp() {
+    borrowStats.rebuild();
+  }
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll();
+    bookRepository.deleteAll();
+    borrowStats.rebuild();
+  }
+
+  @Test
+  void shouldCountANewLoanRightAway() {
+    var book = newBook("Artur");
+
+    lendAndReturn(book, 2);
+
+    assertThat(borrowStats.topBooks(10)).containsExactly(new Entry<>(book.getId(), 2L, 0L));
+    assertThat(borrowStats.topAuthors(10)).containsExactly(new Entry<>("Artur", 2L, 0L));
+  }
+
+  @Test
+  void shouldAddTheFlushedLoansToTheSummaryTables() {
+    var first = newBook("Artur");
+    var second = newBook("Artur");
+    lendAndReturn(first, 2);
+    borrowStats.flush();
+
+    lendAndReturn(first, 1);
+    lendAndReturn(second, 1);
+    borrowStats.flush();
+
+    assertThat(bookStats.findById(first.getId()))
+        .hasValueSatisfying(stats -> assertThat(stats.getLoans()).isEqualTo(3));
+    assertThat(bookStats.findById(second.getId()))
+        .hasValueSatisfying(stats -> assertThat(stats.getLoans()).isEqualTo(1));
+    assertThat(authorStats.findById("Artur"))
+        .hasValueSatisfying(stats -> assertThat(stats.getLoans()).isEqualTo(4));
+  }
+
+  @Test
+  void shouldRebuildTheCountsFromTheLoanHistory() {
+    var popular = newBook("Maria Silva");
+    var other = newBook("Artur");
+    for (int i = 0; i < 5; i++) {
+      loanRepository.save(Loan.builder().customer("Fulano").book(popular)
+          .loanDate(LocalDate.now()).returned(true).build());
+    }
+    loanRepository.save(Loan.builder().customer("Fulano").book(other)
+        .loanDate(LocalDate.now()).build());
+
+    borrowStats.rebuild();
+
+    assertThat(borrowStats.topBooks(1)).containsExactly(new Entry<>(popular.getId(), 5L, 0L));
+    assertThat(borrowStats.topAuthors(10)).containsExactly(
+        new Entry<>("Maria Silva", 5L, 0L), new Entry<>("Artur", 1L, 0L));
+    assertThat(bookStats.count()).isEqualTo(2);
+    assertThat(authorStats.count()).isEqualTo(2);
+  }
+
+  private Book newBook(String author) {
+    return bookRepository.save(Book.builder()
+        .title("As aventuras").author(author).isbn("stats-" + books++).build());
+  }
+
+  private void lendAndReturn(Book book, int times) {
+    for (int i = 0; i < times; i++) {
+      var loan = loanService.save(Loan.builder().customer("Fulano").book(book).build());
+      loan.setReturned(true);
+      loanRepository.save(loan);
+    }
+  }
+}
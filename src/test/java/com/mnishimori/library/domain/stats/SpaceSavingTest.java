@@ -0,0 +1,58 @@
+package com.mnishimori.library.domain.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.library.domain.stats.SpaceSaving.Entry;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingTest {
+
+  @Test
+  void shouldCountExactlyWhileThereIsRoom() {
+    var sketch = new SpaceSaving<String>(3);
+    sketch.add("a", 1);
+    sketch.add("b", 3);
+    sketch.add("a", 1);
+
+    assertThat(sketch.top(5)).containsExactly(new Entry<>("b", 3, 0), new Entry<>("a", 2, 0));
+  }
+
+  @Test
+  void shouldReplaceTheSmallestCounterAndKeepItsCountAsTheError() {
+    var sketch = new SpaceSaving<String>(2);
+    sketch.add("a", 5);
+    sketch.add("b", 2);
+
+    sketch.add("c", 1);
+
+    assertThat(sketch.top(2)).containsExactly(new Entry<>("a", 5, 0), new Entry<>("c", 3, 2));
+  }
+
+  @Test
+  void shouldKeepTheHeavyHittersOfALongTail() {
+    var sketch = new SpaceSaving<Integer>(50);
+    for (int i = 0; i < 10_000; i++) {
+      sketch.add(i % 10 == 0 ? -1 : i, 1);
+      if (i % 20 == 0) {
+        sketch.add(-2, 1);
+      }
+    }
+
+    var top = sketch.top(2);
+    assertThat(top).extracting(Entry::key).containsExactly(-1, -2);
+    assertThat(top.get(0).count()).isGreaterThanOrEqualTo(1000);
+    assertThat(top.get(0).count() - top.get(0).error()).isLessThanOrEqualTo(1000);
+  }
+
+  @Test
+  void shouldReturnTheLatestCountsAfterAnUpdate() {
+    var sketch = new SpaceSaving<String>(3);
+    sketch.add("a", 2);
+    sketch.add("b", 1);
+    assertThat(sketch.top(1)).extracting(Entry::key).containsExactly("a");
+
+    sketch.add("b", 5);
+
+    assertThat(sketch.top(1)).containsExactly(new Entry<>("b", 6, 0));
+  }
+}
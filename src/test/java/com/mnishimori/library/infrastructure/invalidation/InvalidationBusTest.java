@@ -0,0 +1,165 @@
+package com.mnishimori.library.infrastructure.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mnishimori.LibraryApiApplication;
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Two instances of the application on one H2 server, each with its own caches. Without the bus
+ * the second instance would keep answering with the books it cached before the first one
+ * changed them.
+ */
+class InvalidationBusTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private static Object server;
+  private static ConfigurableApplicationContext first;
+  private static ConfigurableApplicationContext second;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // H2 is only on the runtime classpath
+    var serverClass = Class.forName("org.h2.tools.Server");
+    server = serverClass.getMethod("createTcpServer", String[].class)
+        .invoke(null, (Object) new String[] {"-tcpPort", "0", "-ifNotExists"});
+    serverClass.getMethod("start").invoke(server);
+    var port = serverClass.getMethod("getPort").invoke(server);
+    var url = "jdbc:h2:tcp://localhost:" + port + "/mem:invalidation-" + UUID.randomUUID()
+        + ";DB_CLOSE_DELAY=-1";
+    first = start(url);
+    second = start(url);
+  }
+
+  @AfterAll
+  static void tearDown() throws Exception {
+    second.close();
+    first.close();
+    server.getClass().getMethod("stop").invoke(server);
+  }
+
+  @Test
+  void shouldDropTheCopiesOfABookChangedOnAnotherInstance() {
+    var books = first.getBean(BookService.class);
+    var otherBooks = second.getBean(BookService.class);
+    var book = books.save(newBook("bus-1"));
+    assertThat(otherBooks.findById(book.getId())).isPresent();
+    assertThat(otherBooks.findByIsbn("bus-1")).isPresent();
+    assertThat(otherBooks.findByIsbn("bus-2")).isEmpty();
+
+    book.setTitle("As aventuras de novo");
+    book.setIsbn("bus-2");
+    books.update(book);
+
+    await(() -> otherBooks.findById(book.getId())
+        .map(found -> found.getTitle().equals("As aventuras de novo")).orElse(false)
+        && otherBooks.findByIsbn("bus-1").isEmpty()
+        && otherBooks.findByIsbn("bus-2").isPresent()
+        && otherBooks.find(Book.builder().title("de novo").build(), PageRequest.of(0, 10))
+            .getTotalElements() == 1);
+    var lag = second.getBean(MeterRegistry.class).timer("library.invalidation.lag");
+    assertThat(lag.count()).isPositive();
+  }
+
+  @Test
+  void shouldDropTheCopiesOfABookDeletedOnAnotherInstance() {
+    var books = first.getBean(BookService.class);
+    var otherBooks = second.getBean(BookService.class);
+    var book = otherBooks.save(newBook("bus-3"));
+    assertThat(books.findById(book.getId())).isPresent();
+    assertThat(books.findByIsbn("bus-3")).isPresent();
+
+    otherBooks.delete(book.getId());
+
+    await(() -> books.findById(book.getId()).isEmpty() && books.findByIsbn("bus-3").isEmpty());
+  }
+
+  @Test
+  void shouldSendTheInvalidationsThroughATransportOfItsOwn() {
+    var url = "jdbc:h2:mem:invalidation-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    try (var context = start(url, "--library.invalidation.transport=memory",
+        InMemoryTransport.class)) {
+      var transport = context.getBean(InMemoryTransport.class);
+
+      var book = context.getBean(BookService.class).save(newBook("bus-4"));
+
+      await(() -> transport.published.stream()
+          .anyMatch(invalidation -> invalidation.bookId().equals(book.getId())));
+      assertThat(context.getBeansOfType(InvalidationTransport.class)).hasSize(1);
+    }
+  }
+
+  private static ConfigurableApplicationContext start(String url) {
+    return start(url, "--library.invalidation.transport=database");
+  }
+
+  /**
+   * Starts an instance, with the transport given as an argument since application.properties
+   * takes precedence over the builder's properties.
+   */
+  private static ConfigurableApplicationContext start(String url, String transport,
+      Class<?>... sources) {
+    return new SpringApplicationBuilder(LibraryApiApplication.class)
+        .sources(sources)
+        .web(WebApplicationType.NONE)
+        .profiles("test")
+        .properties(
+            "spring.datasource.url=" + url,
+            "spring.datasource.username=sa",
+            "spring.jpa.hibernate.ddl-auto=update",
+            "library.outbox.enabled=false",
+            "library.invalidation.interval=20ms")
+        .run(transport);
+  }
+
+  private static void await(BooleanSupplier condition) {
+    var deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("converged within %s", TIMEOUT).isLessThan(deadline);
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private static Book newBook(String isbn) {
+    return Book.builder().title("As aventuras").author("Artur").isbn(isbn).build();
+  }
+
+  /**
+   * Keeps what it is given to publish, and never receives anything. Not annotated, so the other
+   * contexts of the test don't pick it up.
+   */
+  static class InMemoryTransport implements InvalidationTransport {
+
+    final List<Invalidation> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<Invalidation> invalidations) {
+      published.addAll(invalidations);
+    }
+
+    @Override
+    public List<Invalidation> receive() {
+      return List.of();
+    }
+  }
+}
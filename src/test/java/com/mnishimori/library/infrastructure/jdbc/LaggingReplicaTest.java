@@ -0,0 +1,138 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * An in-memory H2 database stands in for a replica that lags behind the primary: rows are copied
+ * into it by hand, and a book it holds in an older version than the primary shows which reads
+ * were served from it. The caches load their misses from it, but keep them only once the
+ * read-your-writes window has passed since their last invalidation.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:lagging-primary;DB_CLOSE_DELAY=-1",
+    "library.datasource.replicas[0].jdbc-url=jdbc:h2:mem:lagging-replica;DB_CLOSE_DELAY=-1",
+    "library.datasource.replicas[0].username=sa",
+    "library.datasource.read-your-writes=2s",
+    "library.search.index.enabled=false",
+    "library.outbox.enabled=false"})
+@AutoConfigureMockMvc
+class LaggingReplicaTest {
+
+  private final JdbcTemplate primary = jdbc("lagging-primary");
+  private final JdbcTemplate replica = jdbc("lagging-replica");
+
+  @Autowired
+  private BookService bookService;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Autowired
+  private MockMvc mvc;
+
+  @BeforeEach
+  void setUp() {
+    // the replica gets the schema of the primary, as it would through replication
+    if (replica.queryForObject("select count(*) from information_schema.tables "
+        + "where lower(table_name) = 'book'", Integer.class) == 0) {
+      primary.queryForList("script nodata", String.class).forEach(replica::execute);
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    primary.update("delete from cache_invalidation");
+    primary.update("delete from book");
+    replica.update("delete from book");
+  }
+
+  @Test
+  void shouldNotCacheWhatIsReadFromTheReplicaRightAfterAChange() throws Exception {
+    var book = changedWhileTheReplicaLags("lagging-1");
+    entityManagerFactory.getCache().evictAll();
+
+    assertTitles(book, "Antigo");
+    catchUp(book);
+
+    assertTitles(book, "Novo");
+    assertThat(bookService.find(Book.builder().title("Antigo").build(), PageRequest.of(0, 10)))
+        .isEmpty();
+  }
+
+  @Test
+  void shouldCacheWhatIsReadFromTheReplicaOnceTheLagHasPassed() throws Exception {
+    var book = bookService.save(
+        Book.builder().title("Réplica").author("Artur").isbn("lagging-3").build());
+    replica.update("insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, ?)",
+        book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getVersion());
+    Thread.sleep(2200);
+
+    assertTitles(book, "Réplica");
+    // only the replica changes, so whatever still reads the old title was served by a cache
+    replica.update("update book set title = ? where id = ?", "Alterado", book.getId());
+    entityManagerFactory.getCache().evictAll();
+
+    assertTitles(book, "Réplica");
+  }
+
+  @Test
+  void shouldNotPutWhatIsReadFromTheReplicaInTheSecondLevelCache() {
+    var book = changedWhileTheReplicaLags("lagging-2");
+    // as when the entry expires, or another instance evicts it
+    entityManagerFactory.getCache().evictAll();
+
+    assertThat(bookService.findById(book.getId())).map(Book::getTitle).hasValue("Antigo");
+    catchUp(book);
+
+    assertThat(bookService.findById(book.getId())).map(Book::getTitle).hasValue("Novo");
+  }
+
+  private void assertTitles(Book book, String title) throws Exception {
+    assertThat(bookService.findByIsbn(book.getIsbn())).map(Book::getTitle).hasValue(title);
+    mvc.perform(get("/api/books/" + book.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("title").value(title));
+    assertThat(bookService.find(Book.builder().title(title).build(), PageRequest.of(0, 10)))
+        .extracting(Book::getId)
+        .containsExactly(book.getId());
+  }
+
+  /**
+   * Saves a book, copies it to the replica, and then renames it on the primary only.
+   */
+  private Book changedWhileTheReplicaLags(String isbn) {
+    var book = bookService.save(
+        Book.builder().title("Antigo").author("Artur").isbn(isbn).build());
+    replica.update("insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, ?)",
+        book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getVersion());
+    book.setTitle("Novo");
+    return bookService.update(book);
+  }
+
+  private void catchUp(Book book) {
+    replica.update("update book set title = ?, version = ? where id = ?", book.getTitle(),
+        book.getVersion(), book.getId());
+  }
+
+  private static JdbcTemplate jdbc(String database) {
+    return new JdbcTemplate(
+        new DriverManagerDataSource("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", ""));
+  }
+}
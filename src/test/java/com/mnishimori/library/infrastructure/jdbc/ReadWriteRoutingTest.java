@@ -0,0 +1,127 @@
+package com.mnishimori.library.infrastructure.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.jayway.jsonpath.JsonPath;
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookService;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Two in-memory H2 databases stand in for the replicas. Nothing replicates into them, so a row
+ * only found there proves a read was routed to a replica, and a row missing from them proves
+ * it was read from the primary.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+    "library.datasource.replicas[0].jdbc-url=jdbc:h2:mem:routing-replica-0;DB_CLOSE_DELAY=-1",
+    "library.datasource.replicas[0].username=sa",
+    "library.datasource.replicas[1].jdbc-url=jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1",
+    "library.datasource.replicas[1].username=sa",
+    "library.datasource.read-your-writes=5s",
+    "library.search.index.enabled=false",
+    "library.cache.book-response.enabled=false",
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+    "library.outbox.enabled=false"})
+@AutoConfigureMockMvc
+class ReadWriteRoutingTest {
+
+  private static final String BOOK_JSON =
+      "{\"title\": \"As aventuras\", \"author\": \"Artur\", \"isbn\": \"%s\"}";
+
+  private final JdbcTemplate primary = jdbc("routing-primary");
+  private final List<JdbcTemplate> replicas =
+      List.of(jdbc("routing-replica-0"), jdbc("routing-replica-1"));
+
+  @Autowired
+  private BookService bookService;
+  @Autowired
+  private MockMvc mvc;
+
+  @BeforeEach
+  void setUp() {
+    // the replicas get the schema of the primary, as they would through replication
+    var schema = primary.queryForList("script nodata", String.class);
+    for (var replica : replicas) {
+      if (replica.queryForObject("select count(*) from information_schema.tables "
+          + "where lower(table_name) = 'book'", Integer.class) == 0) {
+        schema.forEach(replica::execute);
+      }
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    primary.update("delete from outbox_event");
+    primary.update("delete from book");
+    replicas.forEach(replica -> replica.update("delete from book"));
+  }
+
+  @Test
+  void shouldBalanceTheReadsAcrossTheReplicas() {
+    for (int i = 0; i < replicas.size(); i++) {
+      replicas.get(i).update("insert into book (id, title, author, isbn, version) "
+          + "values (1000, ?, 'Artur', '1000', 0)", "Réplica " + i);
+    }
+
+    var titles = new HashSet<String>();
+    for (int i = 0; i < 4; i++) {
+      titles.add(bookService.findById(1000L).map(Book::getTitle).orElse(null));
+    }
+
+    assertThat(titles).containsExactlyInAnyOrder("Réplica 0", "Réplica 1");
+  }
+
+  @Test
+  void shouldWriteToThePrimary() {
+    var book = bookService.save(
+        Book.builder().title("As aventuras").author("Artur").isbn("routing-1").build());
+
+    assertThat(count(primary, book.getId())).isEqualTo(1);
+    replicas.forEach(replica -> assertThat(count(replica, book.getId())).isZero());
+  }
+
+  @Test
+  void shouldReadFromThePrimaryRightAfterAClientWrites() throws Exception {
+    var created = mvc.perform(post("/api/books")
+            .contentType(APPLICATION_JSON).content(BOOK_JSON.formatted("routing-2")))
+        .andExpect(status().isCreated())
+        .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+        .andReturn()
+        .getResponse();
+    var id = JsonPath.read(created.getContentAsString(), "$.id");
+    var readPrimary = created.getCookie(ReadYourWritesFilter.COOKIE);
+
+    mvc.perform(get("/api/books/" + id).cookie(readPrimary))
+        .andExpect(status().isOk());
+    mvc.perform(get("/api/books/" + id))
+        .andExpect(status().isNotFound());
+  }
+
+  private static int count(JdbcTemplate jdbc, Long id) {
+    return jdbc.queryForObject("select count(*) from book where id = ?", Integer.class, id);
+  }
+
+  private static JdbcTemplate jdbc(String database) {
+    return new JdbcTemplate(
+        new DriverManagerDataSource("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", ""));
+  }
+}
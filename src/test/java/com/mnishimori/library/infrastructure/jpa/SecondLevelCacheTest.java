@@ -0,0 +1,119 @@
+package com.mnishimori.library.infrastructure.jpa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.service.BookService;
+import com.mnishimori.library.infrastructure.jdbc.StatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * The pre-encoded response cache is turned off, so that a GET only skips the database when the
+ * second-level cache answers it.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+    "library.statements.count.enabled=true",
+    "library.cache.book-response.enabled=false",
+    "library.search.index.enabled=false",
+    "library.outbox.enabled=false"})
+@AutoConfigureMockMvc
+class SecondLevelCacheTest {
+
+  private static final String STATEMENT_COUNT = "X-Statement-Count";
+
+  @Autowired
+  private MockMvc mvc;
+  @Autowired
+  private BookService bookService;
+  @Autowired
+  private BookRepository repository;
+  @Autowired
+  private MeterRegistry registry;
+
+  private Book book;
+
+  @BeforeEach
+  void setUp() {
+    book = bookService.save(
+        Book.builder().title("As aventuras").author("Artur").isbn("l2-1").build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    repository.deleteAll();
+  }
+
+  @Test
+  void shouldAnswerTheSecondGetOfABookWithoutSql() throws Exception {
+    mvc.perform(get("/api/books/" + book.getId()).accept(APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    mvc.perform(get("/api/books/" + book.getId()).accept(APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(STATEMENT_COUNT, "0"));
+  }
+
+  @Test
+  void shouldLoadTheChangedBookAfterAnUpdate() throws Exception {
+    mvc.perform(get("/api/books/" + book.getId()).accept(APPLICATION_JSON))
+        .andExpect(status().isOk());
+    book.setTitle("Novo título");
+    bookService.update(book);
+
+    var found = repository.findById(book.getId());
+
+    assertThat(found).map(Book::getTitle).contains("Novo título");
+  }
+
+  @Test
+  void shouldServeRepeatedIsbnQueriesFromTheQueryCache() {
+    repository.findByIsbn("l2-1");
+    repository.existsByIsbn("l2-1");
+    repository.existsByIsbn("l2-missing");
+
+    var count = StatementCounter.start();
+    try {
+      assertThat(repository.findByIsbn("l2-1")).map(Book::getId).contains(book.getId());
+      assertThat(repository.existsByIsbn("l2-1")).isTrue();
+      assertThat(repository.existsByIsbn("l2-missing")).isFalse();
+    } finally {
+      StatementCounter.stop(count);
+    }
+
+    assertThat(count.total()).isZero();
+  }
+
+  @Test
+  void shouldForgetCachedQueryResultsWhenBooksChange() {
+    assertThat(repository.existsByIsbn("l2-2")).isFalse();
+
+    bookService.save(Book.builder().title("Outro").author("Artur").isbn("l2-2").build());
+
+    assertThat(repository.existsByIsbn("l2-2")).isTrue();
+  }
+
+  @Test
+  void shouldReportTheRegionSizeAndHitRatio() {
+    repository.findById(book.getId());
+    repository.findById(book.getId());
+
+    assertThat(registry.get("cache.size").tag("cache", "book").gauge().value())
+        .isGreaterThanOrEqualTo(1);
+    assertThat(registry.get("cache.hit.ratio").tag("cache", "book").gauge().value())
+        .isGreaterThan(0);
+  }
+}
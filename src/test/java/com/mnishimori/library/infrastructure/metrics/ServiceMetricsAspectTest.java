@@ -0,0 +1,87 @@
+package com.mnishimori.library.infrastructure.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.service.BookService;
+import com.mnishimori.library.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+class ServiceMetricsAspectTest {
+
+  @Autowired
+  private BookService service;
+
+  @Autowired
+  private BookRepository repository;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @AfterEach
+  void tearDown() {
+    repository.deleteAll();
+  }
+
+  @Test
+  void shouldTimeServiceCallsByMethodAndOutcome() {
+    var successes = timerCount("SUCCESS", "none");
+    var businessErrors = timerCount("BUSINESS_ERROR", "BusinessException");
+
+    service.save(createNewBook());
+    assertThatThrownBy(() -> service.save(createNewBook())).isInstanceOf(BusinessException.class);
+
+    assertThat(timerCount("SUCCESS", "none")).isEqualTo(successes + 1);
+    assertThat(timerCount("BUSINESS_ERROR", "BusinessException")).isEqualTo(businessErrors + 1);
+  }
+
+  @Test
+  void shouldTellOverloadedMethodsApart() {
+    service.find(Book.builder().build(), PageRequest.of(0, 10));
+    service.find(Book.builder().build(), BookKeyset.first("title", Direction.ASC), 10);
+
+    assertThat(registry.get(ServiceMetricsAspect.METRIC).tag("method", "find(Book,Pageable)")
+        .timer().count()).isPositive();
+    assertThat(registry.get(ServiceMetricsAspect.METRIC)
+        .tag("method", "find(Book,BookKeyset,int)").timer().count()).isPositive();
+  }
+
+  @Test
+  void shouldTimeRepositoryCalls() {
+    service.findById(1L);
+
+    var timer = registry.find("spring.data.repository.invocations")
+        .tag("repository", "BookRepository")
+        .tag("method", "findById")
+        .timer();
+    assertThat(timer).isNotNull();
+    assertThat(timer.count()).isPositive();
+  }
+
+  private long timerCount(String outcome, String exception) {
+    var timer = registry.find(ServiceMetricsAspect.METRIC)
+        .tag("service", "BookService")
+        .tag("method", "save")
+        .tag("outcome", outcome)
+        .tag("exception", exception)
+        .timer();
+    return timer == null ? 0 : timer.count();
+  }
+
+  private Book createNewBook() {
+    return Book.builder().title("As aventuras").author("Artur").isbn("123").build();
+  }
+}
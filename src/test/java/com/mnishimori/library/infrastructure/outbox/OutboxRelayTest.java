@@ -0,0 +1,182 @@
+package com.mnishimori.library.infrastructure.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.model.Loan;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.domain.service.BookService;
+import com.mnishimori.library.domain.service.LoanService;
+import com.mnishimori.library.exception.BusinessException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"library.outbox.enabled=false", "library.outbox.batch-size=2"})
+class OutboxRelayTest {
+
+  @Autowired
+  private BookService bookService;
+  @Autowired
+  private LoanService loanService;
+  @Autowired
+  private BookRepository bookRepository;
+  @Autowired
+  private LoanRepository loanRepository;
+  @Autowired
+  private OutboxEventRepository outbox;
+  @Autowired
+  private OutboxRelay relay;
+  @Autowired
+  private RecordingSink sink;
+
+  @BeforeEach
+  void setUp() {
+    outbox.deleteAll();
+    sink.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll();
+    bookRepository.deleteAll();
+    outbox.deleteAll();
+  }
+
+  @Test
+  void shouldWriteTheEventWithTheBook() {
+    var book = bookService.save(newBook("outbox-1"));
+
+    assertThat(outbox.findAll())
+        .singleElement()
+        .satisfies(event -> {
+          assertThat(event.getType()).isEqualTo("BookChanged");
+          assertThat(event.getAggregateId()).isEqualTo(book.getId());
+          assertThat(event.getPayload()).isEqualTo("{\"bookId\":" + book.getId() + "}");
+        });
+  }
+
+  @Test
+  void shouldNotWriteAnEventWhenTheBookIsRejected() {
+    bookService.save(newBook("outbox-2"));
+
+    assertThatThrownBy(() -> bookService.save(newBook("outbox-2")))
+        .isInstanceOf(BusinessException.class);
+
+    assertThat(outbox.count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldWriteAnEventForANewLoan() {
+    var book = bookService.save(newBook("outbox-3"));
+
+    var loan = loanService.save(Loan.builder().customer("Fulano").book(book).build());
+
+    assertThat(outbox.findAll())
+        .filteredOn(event -> event.getType().equals("LoanCreated"))
+        .singleElement()
+        .satisfies(event -> {
+          assertThat(event.getAggregateId()).isEqualTo(loan.getId());
+          assertThat(event.getPayload()).contains("\"customer\":\"Fulano\"");
+        });
+  }
+
+  @Test
+  void shouldDeliverThePendingEventsInBatchesAndDeleteThem() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      bookService.save(newBook("outbox-batch-" + i));
+    }
+
+    var delivered = relay.drain();
+
+    assertThat(delivered).isEqualTo(3);
+    assertThat(sink.batches).extracting(List::size).containsExactly(2, 1);
+    assertThat(outbox.count()).isZero();
+  }
+
+  @Test
+  void shouldKeepTheEventsUntilTheSinkAcceptsThem() throws Exception {
+    bookService.save(newBook("outbox-4"));
+    sink.failing = true;
+
+    assertThatThrownBy(() -> relay.drain()).isInstanceOf(IOException.class);
+    assertThat(outbox.count()).isEqualTo(1);
+
+    sink.failing = false;
+    assertThat(relay.drain()).isEqualTo(1);
+    assertThat(outbox.count()).isZero();
+  }
+
+  @Test
+  void shouldDeliverEachEventOnceWhenRelaysRunConcurrently() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      bookService.save(newBook("outbox-concurrent-" + i));
+    }
+    sink.delay = Duration.ofMillis(20);
+
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      var first = executor.submit(relay::drain);
+      var second = executor.submit(relay::drain);
+
+      assertThat(first.get(10, TimeUnit.SECONDS) + second.get(10, TimeUnit.SECONDS))
+          .isEqualTo(10);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(sink.batches.stream().flatMap(List::stream).map(OutboxEvent::getId))
+        .hasSize(10)
+        .doesNotHaveDuplicates();
+    assertThat(outbox.count()).isZero();
+  }
+
+  private static Book newBook(String isbn) {
+    return Book.builder().title("As aventuras").author("Artur").isbn(isbn).build();
+  }
+
+  static class RecordingSink implements OutboxSink {
+
+    final List<List<OutboxEvent>> batches = new CopyOnWriteArrayList<>();
+    volatile boolean failing;
+    volatile Duration delay = Duration.ZERO;
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws Exception {
+      if (failing) {
+        throw new IOException("indisponível");
+      }
+      Thread.sleep(delay.toMillis());
+      batches.add(List.copyOf(events));
+    }
+
+    void clear() {
+      batches.clear();
+      delay = Duration.ZERO;
+    }
+  }
+
+  @TestConfiguration
+  static class Configuration {
+
+    @Bean
+    @Primary
+    RecordingSink recordingSink() {
+      return new RecordingSink();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.mnishimori.library.presentation;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.shared.util.MaxStatements;
+import com.mnishimori.library.shared.util.StatementCountExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Every write also inserts its event into the outbox, and may fetch the next block of 50 ids of
+ * the outbox sequence.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = "library.statements.count.enabled=true")
+@AutoConfigureMockMvc
+@ExtendWith(StatementCountExtension.class)
+class BookApiStatementCountTest {
+
+  private static final String BOOK_API = "/api/books";
+  private static final String BOOK_JSON =
+      "{\"title\": \"As aventuras\", \"author\": \"Artur\", \"isbn\": \"%s\"}";
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private BookRepository repository;
+
+  private Book book;
+
+  @BeforeEach
+  void setUp() {
+    book = repository.save(Book.builder().title("Outro livro").author("Maria").isbn("001")
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    repository.deleteAll();
+  }
+
+  @Test
+  @MaxStatements(4)
+  void shouldCreateABook() throws Exception {
+    mvc.perform(post(BOOK_API).contentType(APPLICATION_JSON).content(BOOK_JSON.formatted("123")))
+        .andExpect(status().isCreated())
+        .andExpect(header().exists("X-Statement-Count"));
+  }
+
+  @Test
+  @MaxStatements(1)
+  void shouldGetABook() throws Exception {
+    mvc.perform(get(BOOK_API + "/" + book.getId()))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @MaxStatements(2)
+  void shouldFindBooks() throws Exception {
+    mvc.perform(get(BOOK_API).param("author", "mar").param("page", "0").param("size", "10"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @MaxStatements(1)
+  void shouldAnswerAnUnchangedBookFromItsVersion() throws Exception {
+    mvc.perform(get(BOOK_API + "/" + book.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + book.getVersion() + "\""))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  @MaxStatements(4)
+  void shouldUpdateABook() throws Exception {
+    mvc.perform(put(BOOK_API + "/" + book.getId()).contentType(APPLICATION_JSON)
+            .content(BOOK_JSON.formatted("002")))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @MaxStatements(4)
+  void shouldPatchABook() throws Exception {
+    mvc.perform(patch(BOOK_API + "/" + book.getId()).contentType(APPLICATION_JSON)
+            .content("{\"title\": \"Novo título\"}"))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  @MaxStatements(4)
+  void shouldDeleteABook() throws Exception {
+    mvc.perform(delete(BOOK_API + "/" + book.getId()))
+        .andExpect(status().isNoContent());
+  }
+}
@@ -1,35 +1,62 @@
 package com.mnishimori.library.presentation;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.log;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookKeyset;
+import com.mnishimori.library.domain.service.BookImportResult;
+import com.mnishimori.library.domain.service.BookKeysetPage;
 import com.mnishimori.library.domain.service.BookService;
 import com.mnishimori.library.exception.BusinessException;
+import com.mnishimori.library.infrastructure.jdbc.RoutingReplicaLag;
+import com.mnishimori.library.presentation.cache.BookResponseCache;
+import com.mnishimori.library.presentation.dto.BookCursorMapper;
 import com.mnishimori.library.presentation.dto.BookInputDto;
 import com.mnishimori.library.presentation.dto.BookMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -40,9 +67,11 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import({BookResponseCache.class, RoutingReplicaLag.class, SimpleMeterRegistry.class})
 public class BookControllerTest {
 
   static final String BOOK_API = "/api/books";
+  static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
 
   @Autowired
   MockMvc mvc;
@@ -50,6 +79,14 @@ public class BookControllerTest {
   @MockBean
   BookService service;
 
+  @Autowired
+  BookResponseCache responseCache;
+
+  @BeforeEach
+  public void setUp() {
+    responseCache.invalidateAll();
+  }
+
   @Test
   public void shouldCreateABook() throws Exception {
     var bookInputDto = createNewBook();
@@ -99,6 +136,32 @@ public class BookControllerTest {
         .andExpect(MockMvcResultMatchers.status().isBadRequest());
   }
 
+  @Test
+  public void shouldReturnTheMessageOfEveryInvalidField() throws Exception {
+    var request = post(BOOK_API)
+        .contentType(APPLICATION_JSON)
+        .accept(APPLICATION_JSON)
+        .content("{\"title\":\"\",\"isbn\":\"123\"}");
+
+    for (int i = 0; i < 2; i++) {
+      mvc
+          .perform(request)
+          .andExpect(status().isBadRequest())
+          .andExpect(jsonPath("status_code").value(400))
+          .andExpect(jsonPath("message", Matchers.containsString("Informe o título")))
+          .andExpect(jsonPath("message", Matchers.containsString("Informe o autor")));
+    }
+  }
+
+  @Test
+  public void shouldReturnBadRequestWhenTheBookIdIsNotANumber() throws Exception {
+    mvc
+        .perform(get(BOOK_API + "/abc").accept(APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("message").value("O parâmetro 'bookId' recebeu 'abc', valor "
+            + "inválido. Corrija para o parâmetro correto (Long)."));
+  }
+
   @Test
   public void shouldNotCreateABookWhenIsbnIsDuplicated() throws Exception {
     var bookInputDto = createNewBook();
@@ -118,6 +181,99 @@ public class BookControllerTest {
         .andExpect(MockMvcResultMatchers.status().isBadRequest());
   }
 
+  @Test
+  public void shouldCreateABatchOfBooks() throws Exception {
+    var savedBook = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123456")
+        .build();
+    BDDMockito
+        .given(service.saveAll(anyList()))
+        .willReturn(List.of(BookImportResult.created(savedBook),
+            BookImportResult.failed(savedBook, "ISBN já cadastrado")));
+
+    var json = new ObjectMapper().writeValueAsString(
+        List.of(createNewBook(), createNewBook(), new BookInputDto()));
+
+    var request = post(BOOK_API + "/batch")
+        .contentType(APPLICATION_JSON)
+        .accept(APPLICATION_JSON)
+        .content(json);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", Matchers.hasSize(3)))
+        .andExpect(jsonPath("$[0].created").value(true))
+        .andExpect(jsonPath("$[0].book.id").value(1L))
+        .andExpect(jsonPath("$[1].created").value(false))
+        .andExpect(jsonPath("$[1].message").value("ISBN já cadastrado"))
+        .andExpect(jsonPath("$[2].index").value(2))
+        .andExpect(jsonPath("$[2].created").value(false));
+  }
+
+  @Test
+  public void shouldCreateABatchOfBooksFromNdjson() throws Exception {
+    var savedBook = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123456")
+        .build();
+    BDDMockito
+        .given(service.saveAll(anyList()))
+        .willReturn(List.of(BookImportResult.created(savedBook)));
+
+    var mapper = new ObjectMapper();
+    var ndjson = mapper.writeValueAsString(createNewBook()) + "\n{\"title\": ";
+
+    var request = post(BOOK_API + "/batch")
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .accept(APPLICATION_JSON)
+        .content(ndjson);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", Matchers.hasSize(2)))
+        .andExpect(jsonPath("$[0].created").value(true))
+        .andExpect(jsonPath("$[1].index").value(1))
+        .andExpect(jsonPath("$[1].message").value("JSON inválido"));
+  }
+
+  @Test
+  public void shouldExportTheCatalogAsNdjson() throws Exception {
+    givenACatalogWith(
+        Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123").build(),
+        Book.builder().id(2L).title("Outro livro").author("Maria").isbn("456").build());
+
+    var request = get(BOOK_API + "/export?format=ndjson");
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(
+            "{\"id\":1,\"title\":\"As aventuras\",\"author\":\"Artur\",\"isbn\":\"123\"}\n"
+                + "{\"id\":2,\"title\":\"Outro livro\",\"author\":\"Maria\",\"isbn\":\"456\"}\n"));
+  }
+
+  @Test
+  public void shouldExportTheCatalogAsCsv() throws Exception {
+    givenACatalogWith(
+        Book.builder().id(1L).title("Aventuras, volume \"1\"").author("Artur").isbn("123")
+            .build());
+
+    var request = get(BOOK_API + "/export?format=csv");
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(content().string(
+            "id,title,author,isbn\n1,\"Aventuras, volume \"\"1\"\"\",Artur,123\n"));
+  }
+
+  @Test
+  public void shouldReturnBadRequestWhenExportFormatIsInvalid() throws Exception {
+    mvc
+        .perform(get(BOOK_API + "/export?format=xml"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   public void shouldGetDetailsFromBook() throws Exception {
     var book = new Book();
@@ -133,6 +289,202 @@ public class BookControllerTest {
         .andExpect(status().isOk());
   }
 
+  @Test
+  public void shouldGetABookAsCborWhenAsked() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123")
+        .version(0L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    var response = mvc
+        .perform(get(BOOK_API + "/" + book.getId()).accept(APPLICATION_CBOR))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(APPLICATION_CBOR))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var body = new CBORMapper().readTree(response);
+    Assertions.assertThat(body.get("title").asText()).isEqualTo("As aventuras");
+    Assertions.assertThat(body.get("isbn").asText()).isEqualTo("123");
+  }
+
+  @Test
+  public void shouldTagEachFormatOfABookDifferently() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123")
+        .version(2L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    mvc
+        .perform(get(BOOK_API + "/1").accept(APPLICATION_JSON))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+        .andExpect(header().string(HttpHeaders.VARY, Matchers.startsWith(HttpHeaders.ACCEPT)));
+    mvc
+        .perform(get(BOOK_API + "/1").accept(APPLICATION_CBOR))
+        .andExpect(content().contentType(APPLICATION_CBOR))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2-cbor\""))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    mvc
+        .perform(get(BOOK_API + "/1").accept(APPLICATION_SMILE))
+        .andExpect(content().contentType(APPLICATION_SMILE))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2-x-jackson-smile\""))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+  }
+
+  @Test
+  public void shouldPreferTheFormatWithTheHighestQuality() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").version(2L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    mvc
+        .perform(get(BOOK_API + "/1")
+            .header(HttpHeaders.ACCEPT, "application/cbor;q=0.5, application/json"))
+        .andExpect(content().contentType(APPLICATION_JSON))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    mvc
+        .perform(get(BOOK_API + "/1")
+            .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+        .andExpect(content().contentType(APPLICATION_CBOR))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2-cbor\""));
+  }
+
+  @Test
+  public void shouldNotAnswerNotModifiedWithTheTagOfAnotherFormat() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").version(3L).build();
+    BDDMockito.given(service.findVersionById(1L)).willReturn(Optional.of(3L));
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+
+    mvc
+        .perform(get(BOOK_API + "/1").accept(APPLICATION_CBOR)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(APPLICATION_CBOR))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""));
+    mvc
+        .perform(get(BOOK_API + "/1").accept(APPLICATION_CBOR)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+  }
+
+  @Test
+  public void shouldWriteAnEncodedBookOnceItWasRead() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123")
+        .version(2L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    for (int i = 0; i < 2; i++) {
+      mvc
+          .perform(get(BOOK_API + "/" + book.getId()).accept(APPLICATION_JSON))
+          .andExpect(status().isOk())
+          .andExpect(content().contentType(APPLICATION_JSON))
+          .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+          .andExpect(jsonPath("title").value("As aventuras"));
+    }
+
+    Mockito.verify(service, Mockito.times(1)).findById(book.getId());
+  }
+
+  @Test
+  public void shouldWriteTheGzipBodyWhenItIsSmallerAndAccepted() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras ".repeat(20)).author("Artur")
+        .isbn("123").version(2L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    var response = mvc
+        .perform(get(BOOK_API + "/" + book.getId()).accept(APPLICATION_JSON)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+        .andExpect(header().string(HttpHeaders.ETAG, "W/\"2\""))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    try (var body = new GZIPInputStream(new ByteArrayInputStream(response))) {
+      var json = new ObjectMapper().readTree(body);
+      Assertions.assertThat(json.get("title").asText()).isEqualTo(book.getTitle());
+    }
+  }
+
+  @Test
+  public void shouldNotWriteTheGzipBodyWhenItsQualityIsZero() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras ".repeat(20)).author("Artur")
+        .isbn("123").version(2L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    for (var acceptEncoding : List.of("gzip;q=0.0", "deflate, gzip; q=0.000", "gzip;q=abc")) {
+      mvc
+          .perform(get(BOOK_API + "/" + book.getId()).accept(APPLICATION_JSON)
+              .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+          .andExpect(status().isOk())
+          .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+          .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+          .andExpect(jsonPath("title").value(book.getTitle()));
+    }
+    mvc
+        .perform(get(BOOK_API + "/" + book.getId()).accept(APPLICATION_JSON)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0.5"))
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+  }
+
+  @Test
+  public void shouldAnswerJsonWhenAnyTypeIsAccepted() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").version(0L).build();
+    BDDMockito.given(service.findById(book.getId())).willReturn(Optional.of(book));
+
+    mvc
+        .perform(get(BOOK_API + "/" + book.getId()).accept(MediaType.ALL))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(APPLICATION_JSON))
+        .andExpect(jsonPath("title").value("As aventuras"));
+  }
+
+  @Test
+  public void shouldReturnTheVersionOfTheBookAsETag() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123")
+        .version(3L).build();
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+
+    mvc
+        .perform(get(BOOK_API + "/1").accept(APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+  }
+
+  @Test
+  public void shouldAnswerNotModifiedFromTheVersionAlone() throws Exception {
+    BDDMockito.given(service.findVersionById(1L)).willReturn(Optional.of(3L));
+
+    mvc
+        .perform(get(BOOK_API + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+        .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+        .andExpect(content().string(""));
+
+    Mockito.verify(service, Mockito.never()).findById(anyLong());
+  }
+
+  @Test
+  public void shouldReturnTheBookWhenTheETagIsStale() throws Exception {
+    var book = Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123")
+        .version(4L).build();
+    BDDMockito.given(service.findVersionById(1L)).willReturn(Optional.of(4L));
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+
+    mvc
+        .perform(get(BOOK_API + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+        .andExpect(jsonPath("title").value("As aventuras"));
+  }
+
+  @Test
+  public void shouldReturnNotFoundForAConditionalGetOfABookNotFound() throws Exception {
+    BDDMockito.given(service.findVersionById(1L)).willReturn(Optional.empty());
+
+    mvc
+        .perform(get(BOOK_API + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+        .andExpect(status().isNotFound());
+  }
+
   @Test
   public void shouldThrownAnExceptionWhenGetABookNotFound() throws Exception {
     BDDMockito
@@ -144,7 +496,9 @@ public class BookControllerTest {
 
     mvc
         .perform(request)
-        .andExpect(status().isNotFound());
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("status_code").value(404))
+        .andExpect(jsonPath("message").value("Not Found"));
   }
 
   @Test
@@ -185,7 +539,7 @@ public class BookControllerTest {
         .given(service.findById(anyLong()))
         .willReturn(Optional.of(book));
     BDDMockito
-        .given(service.save(book))
+        .given(service.update(book))
         .willReturn(updatedBook);
 
     var json = new ObjectMapper().writeValueAsString(bookInputDto);
@@ -204,6 +558,21 @@ public class BookControllerTest {
         .andExpect(jsonPath("isbn").value(updatedBook.getIsbn()));
   }
 
+  @Test
+  public void shouldNotUpdateABookWithAMissingField() throws Exception {
+    var request = put(BOOK_API + "/1")
+        .content("{\"title\": \"As aventuras\", \"author\": \"Artur\"}")
+        .accept(APPLICATION_JSON)
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("message").value("Informe o isbn"));
+
+    Mockito.verify(service, Mockito.never()).update(any(Book.class));
+  }
+
   @Test
   public void shouldReturnResouceNotFoundWhenUpdatedABookNotFound() throws Exception {
     var json = new ObjectMapper().writeValueAsString(createNewBook());
@@ -222,6 +591,208 @@ public class BookControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  @Test
+  public void shouldCopyEveryFieldOfTheRequestOnUpdate() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001").build();
+    BDDMockito
+        .given(service.findById(1L))
+        .willReturn(Optional.of(book));
+    BDDMockito
+        .given(service.update(any(Book.class)))
+        .willAnswer(invocation -> invocation.getArgument(0));
+
+    var request = put(BOOK_API + "/1")
+        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+        .accept(APPLICATION_JSON)
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("title").value("As aventuras"))
+        .andExpect(jsonPath("author").value("Artur"))
+        .andExpect(jsonPath("isbn").value("123456"));
+  }
+
+  @Test
+  public void shouldUpdateABookWhenIfMatchHasTheCurrentVersion() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001")
+        .version(3L).build();
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+    BDDMockito
+        .given(service.update(any(Book.class)))
+        .willAnswer(invocation -> invocation.getArgument(0, Book.class).toBuilder()
+            .version(4L).build());
+
+    var request = put(BOOK_API + "/1")
+        .header(HttpHeaders.IF_MATCH, "\"3\"")
+        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+  }
+
+  @Test
+  public void shouldAcceptTheTagOfAnotherFormatInIfMatch() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001")
+        .version(3L).build();
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+    BDDMockito
+        .given(service.update(any(Book.class)))
+        .willAnswer(invocation -> invocation.getArgument(0, Book.class).toBuilder()
+            .version(4L).build());
+
+    var request = put(BOOK_API + "/1")
+        .header(HttpHeaders.IF_MATCH, "\"3-cbor\"")
+        .accept(APPLICATION_CBOR)
+        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(APPLICATION_CBOR))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"4-cbor\""));
+  }
+
+  @Test
+  public void shouldRejectAnUpdateWithAStaleIfMatch() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001")
+        .version(4L).build();
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+
+    var request = put(BOOK_API + "/1")
+        .header(HttpHeaders.IF_MATCH, "\"3\"")
+        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isPreconditionFailed())
+        .andExpect(jsonPath("message")
+            .value("O recurso foi alterado por outra requisição. Consulte-o novamente."));
+
+    Mockito.verify(service, Mockito.never()).update(any(Book.class));
+  }
+
+  @Test
+  public void shouldReportAConflictWhenAConcurrentUpdateWins() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001")
+        .version(3L).build();
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+    BDDMockito
+        .given(service.update(any(Book.class)))
+        .willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+    var request = put(BOOK_API + "/1")
+        .header(HttpHeaders.IF_MATCH, "\"3\"")
+        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("message").value(
+            "O recurso foi alterado ao mesmo tempo por outra requisição. Tente novamente."));
+  }
+
+  @Test
+  public void shouldRejectAPatchWithAStaleIfMatch() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001")
+        .version(4L).build();
+    BDDMockito.given(service.findById(1L)).willReturn(Optional.of(book));
+
+    var request = patch(BOOK_API + "/1")
+        .header(HttpHeaders.IF_MATCH, "\"3\"")
+        .content("{\"title\": \"New title\"}")
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isPreconditionFailed());
+
+    Mockito.verify(service, Mockito.never()).update(any(Book.class));
+  }
+
+  @Test
+  public void shouldPatchOnlyThePresentFields() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001").build();
+    BDDMockito
+        .given(service.findById(1L))
+        .willReturn(Optional.of(book));
+    BDDMockito
+        .given(service.update(any(Book.class)))
+        .willAnswer(invocation -> invocation.getArgument(0));
+
+    var request = patch(BOOK_API + "/1")
+        .content("{\"title\": \"New title\"}")
+        .accept(APPLICATION_JSON)
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("id").value(1))
+        .andExpect(jsonPath("title").value("New title"))
+        .andExpect(jsonPath("author").value("Old author"))
+        .andExpect(jsonPath("isbn").value("001"));
+
+    Mockito.verify(service).update(book);
+  }
+
+  @Test
+  public void shouldNotSaveWhenThePatchChangesNothing() throws Exception {
+    var book = Book.builder().id(1L).title("Old title").author("Old author").isbn("001").build();
+    BDDMockito
+        .given(service.findById(1L))
+        .willReturn(Optional.of(book));
+
+    var request = patch(BOOK_API + "/1")
+        .content("{\"title\": \"Old title\"}")
+        .accept(APPLICATION_JSON)
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("title").value("Old title"));
+
+    Mockito.verify(service, Mockito.never()).update(any(Book.class));
+  }
+
+  @Test
+  public void shouldNotPatchABookWithABlankField() throws Exception {
+    var request = patch(BOOK_API + "/1")
+        .content("{\"author\": \" \"}")
+        .accept(APPLICATION_JSON)
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isBadRequest());
+
+    Mockito.verify(service, Mockito.never()).update(any(Book.class));
+  }
+
+  @Test
+  public void shouldReturnResourceNotFoundWhenPatchedABookNotFound() throws Exception {
+    BDDMockito
+        .given(service.findById(anyLong()))
+        .willReturn(Optional.empty());
+
+    var request = patch(BOOK_API + "/1")
+        .content("{\"title\": \"New title\"}")
+        .accept(APPLICATION_JSON)
+        .contentType(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isNotFound());
+  }
+
   @Test
   public void shouldFilterPageableBooks() throws Exception {
     var id = 1L;
@@ -243,10 +814,91 @@ public class BookControllerTest {
         .andExpect(jsonPath("totalElements").value(1))
         .andExpect(jsonPath("pageable.pageSize").value(100))
         .andExpect(jsonPath("pageable.pageNumber").value(0));
+
+    Mockito.verify(service).find(
+        Mockito.argThat(probe -> book.getTitle().equals(probe.getTitle())
+            && book.getAuthor().equals(probe.getAuthor()) && probe.getIsbn() == null),
+        any(Pageable.class));
+  }
+
+  @Test
+  public void shouldFilterPageableBooksAsSmileWhenAsked() throws Exception {
+    var book = Book.builder().id(1L).title("Some title").author("Some author").isbn("123")
+        .build();
+    BDDMockito.given(service.find(any(Book.class), any(Pageable.class)))
+        .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
+
+    var response = mvc
+        .perform(get(BOOK_API + "?title=Some&page=0&size=100").accept(APPLICATION_SMILE))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(APPLICATION_SMILE))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var body = new SmileMapper().readTree(response);
+    Assertions.assertThat(body.get("totalElements").asLong()).isEqualTo(1);
+    Assertions.assertThat(body.get("content").get(0).get("title").asText())
+        .isEqualTo("Some title");
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenACatalogWith(Book... books) {
+    BDDMockito
+        .willAnswer(invocation -> {
+          Arrays.stream(books).forEach(invocation.getArgument(0, Consumer.class));
+          return null;
+        })
+        .given(service).export(any());
+  }
+
+  @Test
+  public void shouldSeekBooksAfterACursor() throws Exception {
+    var book = Book.builder().id(7L).title("Some title").author("Some author").isbn("123")
+        .build();
+    var next = new BookKeyset("title", Direction.DESC, "Some title", 7L);
+    BDDMockito
+        .given(service.find(any(Book.class), any(BookKeyset.class), anyInt()))
+        .willReturn(new BookKeysetPage(List.of(book), next));
+
+    var request = get(BOOK_API + "?author=Some&after=&size=1&sort=title,desc")
+        .accept(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("content", Matchers.hasSize(1)))
+        .andExpect(jsonPath("size").value(1))
+        .andExpect(jsonPath("next").value(BookCursorMapper.to(next)))
+        .andExpect(jsonPath("totalElements").doesNotExist());
+    BDDMockito.then(service).should()
+        .find(any(Book.class), Mockito.eq(BookKeyset.first("title", Direction.DESC)), Mockito.eq(1));
+  }
+
+  @Test
+  public void shouldContinueFromTheKeysetInTheCursor() throws Exception {
+    var keyset = new BookKeyset("title", Direction.DESC, "Some title", 7L);
+    BDDMockito
+        .given(service.find(any(Book.class), any(BookKeyset.class), anyInt()))
+        .willReturn(new BookKeysetPage(List.of(), null));
+
+    var request = get(BOOK_API + "?after=" + BookCursorMapper.to(keyset))
+        .accept(APPLICATION_JSON);
+
+    mvc
+        .perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("next").doesNotExist());
+    BDDMockito.then(service).should()
+        .find(any(Book.class), Mockito.eq(keyset), Mockito.eq(20));
+  }
+
+  @Test
+  public void shouldReturnBadRequestWhenTheCursorIsInvalid() throws Exception {
+    mvc
+        .perform(get(BOOK_API + "?after=not-a-cursor").accept(APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
   }
 
   private static BookInputDto createNewBook() {
     return new BookInputDto("As aventuras", "Artur", "123456");
   }
-
 }
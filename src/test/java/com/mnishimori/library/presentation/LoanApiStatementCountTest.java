@@ -0,0 +1,71 @@
+package com.mnishimori.library.presentation;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.repository.BookRepository;
+import com.mnishimori.library.domain.repository.LoanRepository;
+import com.mnishimori.library.domain.service.BookService;
+import com.mnishimori.library.shared.util.MaxStatements;
+import com.mnishimori.library.shared.util.StatementCountExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "library.statements.count.enabled=true")
+@AutoConfigureMockMvc
+@ExtendWith(StatementCountExtension.class)
+class LoanApiStatementCountTest {
+
+  private static final String LOAN_API = "/api/loans";
+  private static final String LOAN_JSON = "{\"isbn\": \"%s\", \"customer\": \"Fulano\"}";
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private BookService bookService;
+
+  @Autowired
+  private BookRepository bookRepository;
+
+  @Autowired
+  private LoanRepository loanRepository;
+
+  @BeforeEach
+  void setUp() {
+    // through the service, so that the ISBN cache forgets the books of earlier tests
+    bookService.save(Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    loanRepository.deleteAll();
+    bookRepository.deleteAll();
+  }
+
+  @Test
+  @MaxStatements(5)
+  void shouldCreateALoan() throws Exception {
+    mvc.perform(post(LOAN_API).contentType(APPLICATION_JSON).content(LOAN_JSON.formatted("123")))
+        .andExpect(status().isCreated());
+  }
+
+  @Test
+  @MaxStatements(5)
+  void shouldRejectALoanOfABookAlreadyLoaned() throws Exception {
+    mvc.perform(post(LOAN_API).contentType(APPLICATION_JSON).content(LOAN_JSON.formatted("123")))
+        .andExpect(status().isCreated());
+    mvc.perform(post(LOAN_API).contentType(APPLICATION_JSON).content(LOAN_JSON.formatted("123")))
+        .andExpect(status().isBadRequest());
+  }
+}
@@ -1,18 +1,24 @@
 package com.mnishimori.library.presentation;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.mnishimori.library.domain.model.Book;
 import com.mnishimori.library.domain.model.Loan;
 import com.mnishimori.library.domain.service.BookService;
 import com.mnishimori.library.domain.service.LoanService;
+import com.mnishimori.library.domain.stats.BorrowStats;
+import com.mnishimori.library.domain.stats.SpaceSaving.Entry;
 import com.mnishimori.library.exception.BusinessException;
 import com.mnishimori.library.presentation.dto.LoanDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +26,7 @@ import org.mockito.BDDMockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -29,6 +36,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
+@Import(SimpleMeterRegistry.class)
 public class LoanControllerTest {
 
   private static final String LOAN_API = "/api/loans";
@@ -40,6 +48,8 @@ public class LoanControllerTest {
   private BookService bookService;
   @MockBean
   private LoanService loanService;
+  @MockBean
+  private BorrowStats borrowStats;
 
   @Test
   public void shouldCreateLoan() throws Exception {
@@ -67,6 +77,30 @@ public class LoanControllerTest {
         .andExpect(jsonPath("id").value(1L));
   }
 
+  @Test
+  public void shouldReturnTheLoanAsCborWhenAsked() throws Exception {
+    var loanDto = LoanDto.builder().isbn("123").customer("Fulano").build();
+    var book = Book.builder().id(1L).isbn("123").build();
+    var loan = Loan.builder().id(1L).customer("Fulano").book(book).loanDate(LocalDate.now())
+        .build();
+    BDDMockito.given(bookService.findByIsbn(loanDto.getIsbn())).willReturn(Optional.of(book));
+    BDDMockito.given(loanService.save(any(Loan.class))).willReturn(loan);
+
+    var request = MockMvcRequestBuilders.post(LOAN_API)
+        .accept(MediaType.APPLICATION_CBOR)
+        .contentType(MediaType.APPLICATION_CBOR)
+        .content(new CBORMapper().writeValueAsBytes(loanDto));
+
+    var response = mvc.perform(request)
+        .andExpect(status().isCreated())
+        .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var body = new CBORMapper().readTree(response);
+    assertThat(body.get("customer").asText()).isEqualTo("Fulano");
+    assertThat(body.get("book").get("isbn").asText()).isEqualTo("123");
+  }
+
   @Test
   public void shouldReturnExceptionWhenCreateAnInexistsBook() throws Exception {
     var loanDto = LoanDto.builder().isbn("123").customer("Fulano").build();
@@ -88,6 +122,25 @@ public class LoanControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  public void shouldReturnBadRequestWhenTheIsbnIsNotFound() throws Exception {
+    var loanDto = LoanDto.builder().isbn("123").customer("Fulano").build();
+    var json = new ObjectMapper().writeValueAsString(loanDto);
+
+    BDDMockito
+        .given(bookService.findByIsbn(loanDto.getIsbn()))
+        .willReturn(Optional.empty());
+
+    var request = MockMvcRequestBuilders.post(LOAN_API)
+        .accept(MediaType.APPLICATION_JSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(json);
+
+    mvc.perform(request)
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("message").value("Livro não encontrado"));
+  }
+
   @Test
   public void shouldReturnExceptionWhenCreateAnLoanWithABookAlreadyLoaned() throws Exception {
     var loanDto = LoanDto.builder().isbn("123").customer("Fulano").build();
@@ -112,4 +165,31 @@ public class LoanControllerTest {
         .andExpect(status().isBadRequest())
         .andExpect(content().contentType(MediaType.APPLICATION_JSON));
   }
+
+  @Test
+  public void shouldReturnTheMostBorrowedBooksAndAuthors() throws Exception {
+    BDDMockito.given(borrowStats.capacity()).willReturn(100);
+    BDDMockito.given(borrowStats.topBooks(2))
+        .willReturn(List.of(new Entry<>(7L, 12L, 0L), new Entry<>(3L, 9L, 1L)));
+    BDDMockito.given(borrowStats.topAuthors(2))
+        .willReturn(List.of(new Entry<>("Artur", 21L, 0L)));
+
+    mvc.perform(MockMvcRequestBuilders.get(LOAN_API + "/stats/top").param("k", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("books[0].bookId").value(7))
+        .andExpect(jsonPath("books[0].loans").value(12))
+        .andExpect(jsonPath("books[1].error").value(1))
+        .andExpect(jsonPath("authors[0].author").value("Artur"))
+        .andExpect(jsonPath("authors[0].loans").value(21));
+  }
+
+  @Test
+  public void shouldLimitTheTopToTheSketchCapacity() throws Exception {
+    BDDMockito.given(borrowStats.capacity()).willReturn(100);
+
+    mvc.perform(MockMvcRequestBuilders.get(LOAN_API + "/stats/top").param("k", "5000"))
+        .andExpect(status().isOk());
+
+    BDDMockito.then(borrowStats).should().topBooks(100);
+  }
 }
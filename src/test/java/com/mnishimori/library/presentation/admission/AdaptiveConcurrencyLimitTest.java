@@ -0,0 +1,137 @@
+package com.mnishimori.library.presentation.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.mnishimori.library.presentation.admission.AdaptiveConcurrencyLimit.Admission;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  void shouldShedOnceTheLimitAndTheQueueAreFull() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(2, 1, 10, 0, Duration.ZERO, 2.0, 0.5);
+
+    assertThat(limit.acquire()).isEqualTo(Admission.ADMITTED);
+    assertThat(limit.acquire()).isEqualTo(Admission.ADMITTED);
+    assertThat(limit.acquire()).isEqualTo(Admission.SHED);
+    assertThat(limit.inFlight()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldAdmitAQueuedRequestOnceASlotIsReleased() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1, Duration.ofSeconds(10), 2.0, 0.5);
+    limit.acquire();
+
+    var queued = CompletableFuture.supplyAsync(() -> {
+      try {
+        return limit.acquire();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    while (limit.queued() == 0) {
+      Thread.onSpinWait();
+    }
+    assertThat(limit.acquire()).as("the queue is full").isEqualTo(Admission.SHED);
+    limit.release(FAST);
+
+    assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo(Admission.QUEUED);
+    assertThat(limit.inFlight()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldShedAQueuedRequestAfterTheQueueTimeout() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1, Duration.ofMillis(20), 2.0, 0.5);
+    limit.acquire();
+
+    assertThat(limit.acquire()).isEqualTo(Admission.SHED);
+    assertThat(limit.queued()).isZero();
+  }
+
+  @Test
+  void shouldShrinkWhenRequestsSlowDownAndGrowBackWhenTheyRecover() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(8, 2, 16, 0, Duration.ZERO, 2.0, 0.5);
+    saturate(limit, FAST);
+
+    saturate(limit, SLOW);
+    saturate(limit, SLOW);
+    assertThat(limit.limit()).isEqualTo(2);
+
+    // the average latency caught up with the slow requests, so they count as timely by now
+    for (int i = 0; i < 200; i++) {
+      saturate(limit, SLOW);
+    }
+    assertThat(limit.limit()).isGreaterThan(8);
+  }
+
+  @Test
+  void shouldNotGrowWhileTheLimitIsBarelyUsed() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(8, 2, 16, 0, Duration.ZERO, 2.0, 0.5);
+    for (int i = 0; i < 1000; i++) {
+      limit.acquire();
+      limit.release(FAST);
+    }
+
+    assertThat(limit.limit()).isEqualTo(8);
+  }
+
+  @Test
+  void shouldKeepTheLimitOfAQuietEndpointWithATailLatency() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(20, 2, 100, 0, Duration.ZERO, 2.0, 0.9);
+    var random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      limit.acquire();
+      limit.release(exponential(random));
+    }
+
+    assertThat(limit.limit()).isEqualTo(20);
+  }
+
+  @Test
+  void shouldNotShrinkABusyEndpointForItsTailLatency() throws Exception {
+    var limit = new AdaptiveConcurrencyLimit(20, 2, 100, 0, Duration.ZERO, 2.0, 0.9);
+    var random = new Random(42);
+    for (int i = 0; i < 250; i++) {
+      var taken = 0;
+      while (limit.acquire() != Admission.SHED) {
+        taken++;
+      }
+      for (int j = 0; j < taken; j++) {
+        limit.release(exponential(random));
+      }
+    }
+
+    assertThat(limit.limit()).isGreaterThanOrEqualTo(20);
+  }
+
+  @Test
+  void shouldRejectAnInitialLimitOutsideTheBounds() {
+    assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(20, 2, 10, 0, Duration.ZERO, 2.0, 0.5))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static long exponential(Random random) {
+    return (long) (-FAST * Math.log(1 - random.nextDouble()));
+  }
+
+  /**
+   * Takes every slot of the limit, then releases them all with the given latency.
+   */
+  private static void saturate(AdaptiveConcurrencyLimit limit, long latency) throws Exception {
+    var taken = 0;
+    while (limit.acquire() != Admission.SHED) {
+      taken++;
+    }
+    for (int i = 0; i < taken; i++) {
+      limit.release(latency);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.mnishimori.library.presentation.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.mnishimori.library.domain.model.Book;
+import com.mnishimori.library.domain.service.BookService;
+import com.mnishimori.library.infrastructure.jdbc.RoutingReplicaLag;
+import com.mnishimori.library.presentation.BookController;
+import com.mnishimori.library.presentation.cache.BookResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * One request at a time per endpoint and no queue, so a second concurrent request to the same
+ * endpoint is shed while other endpoints are still served.
+ */
+@ActiveProfiles("test")
+@WebMvcTest(controllers = BookController.class, properties = {
+    "library.admission.initial-limit=1",
+    "library.admission.min-limit=1",
+    "library.admission.max-limit=1",
+    "library.admission.queue-size=0",
+    "library.admission.retry-after=1500ms",
+    "library.cache.book-response.enabled=false"})
+@Import({BookResponseCache.class, RoutingReplicaLag.class, SimpleMeterRegistry.class})
+class AdmissionControlTest {
+
+  @Autowired
+  private MockMvc mvc;
+  @Autowired
+  private MeterRegistry registry;
+
+  @MockBean
+  private BookService service;
+
+  @Test
+  void shouldShedRequestsBeyondTheLimitOfTheEndpoint() throws Exception {
+    var entered = new CountDownLatch(1);
+    var proceed = new CountDownLatch(1);
+    BDDMockito.given(service.findById(1L)).willAnswer(invocation -> {
+      entered.countDown();
+      proceed.await(10, TimeUnit.SECONDS);
+      return Optional.of(book(1L));
+    });
+    BDDMockito.given(service.find(any(Book.class), any(Pageable.class)))
+        .willReturn(new PageImpl<>(List.of(book(1L))));
+
+    var slow = CompletableFuture.runAsync(() -> {
+      try {
+        mvc.perform(get("/api/books/1")).andExpect(status().isOk());
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+    mvc.perform(get("/api/books/1"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string("Retry-After", "2"))
+        .andExpect(jsonPath("message").value(
+            "O serviço está sobrecarregado. Tente novamente em instantes."));
+    mvc.perform(get("/api/books").param("title", "aventuras"))
+        .andExpect(status().isOk());
+
+    proceed.countDown();
+    slow.get(10, TimeUnit.SECONDS);
+    mvc.perform(get("/api/books/1")).andExpect(status().isOk());
+
+    assertThat(count("library.admission.shed", "BookController.getById")).isEqualTo(1);
+    assertThat(count("library.admission.admitted", "BookController.getById")).isEqualTo(2);
+    assertThat(count("library.admission.admitted", "BookController.find")).isEqualTo(1);
+  }
+
+  private double count(String meter, String endpoint) {
+    return registry.counter(meter, "endpoint", endpoint).count();
+  }
+
+  private static Book book(Long id) {
+    return Book.builder().id(id).title("As aventuras").author("Artur").isbn("123").version(0L)
+        .build();
+  }
+}
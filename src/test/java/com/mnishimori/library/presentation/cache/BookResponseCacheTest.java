@@ -0,0 +1,106 @@
+package com.mnishimori.library.presentation.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mnishimori.library.domain.cache.ReplicaLag;
+import com.mnishimori.library.domain.event.BookChangedEvent;
+import com.mnishimori.library.domain.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class BookResponseCacheTest {
+
+  private SimpleMeterRegistry registry;
+  private BookResponseCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    cache = new BookResponseCache(new ObjectMapper(),
+        ReplicaLag.NONE, registry, true, DataSize.ofMegabytes(1));
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void shouldEncodeABookOnlyOnce() throws Exception {
+    cache.get(1L, id -> load(id, 3L));
+    var book = cache.get(1L, id -> load(id, 3L));
+
+    assertThat(loads).hasValue(1);
+    assertThat(book.version()).isEqualTo(3L);
+    assertThat(new ObjectMapper().readTree(book.json()).get("title").asText())
+        .isEqualTo("As aventuras");
+  }
+
+  @Test
+  void shouldReportItsHitsAndMisses() {
+    cache.get(1L, id -> load(id, 3L));
+    cache.get(1L, id -> load(id, 3L));
+
+    assertThat(registry.get("cache.gets").tags("cache", "book.response", "result", "hit")
+        .functionCounter().count()).isEqualTo(1);
+    assertThat(registry.get("cache.gets").tags("cache", "book.response", "result", "miss")
+        .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldEncodeAgainAfterTheBookChanged() {
+    cache.get(1L, id -> load(id, 3L));
+    cache.onBookChanged(new BookChangedEvent(1L));
+
+    var book = cache.get(1L, id -> load(id, 4L));
+
+    assertThat(loads).hasValue(2);
+    assertThat(book.version()).isEqualTo(4L);
+  }
+
+  @Test
+  void shouldNotKeepABookChangedWhileItWasEncoded() {
+    cache.get(1L, id -> {
+      cache.onBookChanged(new BookChangedEvent(id));
+      return load(id, 3L);
+    });
+
+    cache.get(1L, id -> load(id, 4L));
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldKeepABookReadFromAReplicaOnlyOnceTheReplicaLagPassed() {
+    var lag = new AtomicReference<>(Duration.ofHours(1));
+    cache = new BookResponseCache(new ObjectMapper(), lag::get, registry, true,
+        DataSize.ofMegabytes(1));
+
+    cache.get(1L, id -> load(id, 3L));
+    cache.get(1L, id -> load(id, 3L));
+    lag.set(Duration.ZERO);
+    cache.get(1L, id -> load(id, 3L));
+    cache.get(1L, id -> load(id, 3L));
+
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  void shouldKeepTheGzipBodyOnlyWhenItIsSmaller() {
+    var small = cache.get(1L, id -> load(id, 3L));
+    var large = cache.get(2L, id -> Book.builder().id(id).title("As aventuras ".repeat(20))
+        .version(1L).build());
+
+    assertThat(small.gzip()).isNull();
+    assertThat(large.gzip()).hasSizeLessThan(large.json().length);
+  }
+
+  private Book load(Long id, Long version) {
+    loads.incrementAndGet();
+    return Book.builder().id(id).title("As aventuras").author("Artur").isbn("123")
+        .version(version).build();
+  }
+}
@@ -0,0 +1,17 @@
+package com.mnishimori.library.shared.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of JDBC statements each HTTP request of the annotated test may execute. Checked
+ * by the {@link StatementCountExtension}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxStatements {
+
+  int value();
+}
@@ -0,0 +1,60 @@
+package com.mnishimori.library.shared.util;
+
+import com.mnishimori.library.infrastructure.jdbc.StatementCount;
+import com.mnishimori.library.infrastructure.jdbc.StatementCounter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * Fails a test annotated with {@link MaxStatements} when one of the HTTP requests it makes
+ * executes more statements than allowed. Statements run outside of requests, like fixtures, are
+ * not counted.
+ */
+public class StatementCountExtension implements BeforeEachCallback, AfterEachCallback {
+
+  private static final Namespace NAMESPACE = Namespace.create(StatementCountExtension.class);
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    var requests = new Requests();
+    StatementCounter.addRequestListener(requests);
+    context.getStore(NAMESPACE).put(Requests.class, requests);
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    var requests = context.getStore(NAMESPACE).remove(Requests.class, Requests.class);
+    StatementCounter.removeRequestListener(requests);
+
+    var max = context.getRequiredTestMethod().getAnnotation(MaxStatements.class);
+    if (max == null || context.getExecutionException().isPresent()) {
+      return;
+    }
+    for (var request : requests.completed) {
+      if (request.count().total() > max.value()) {
+        throw new AssertionFailedError(String.format(
+            "%s executed %d statements (%s), at most %d expected", request.request(),
+            request.count().total(), request.count(), max.value()));
+      }
+    }
+  }
+
+  private record Request(String request, StatementCount count) {
+  }
+
+  private static final class Requests implements BiConsumer<String, StatementCount> {
+
+    private final List<Request> completed = new ArrayList<>();
+
+    @Override
+    public synchronized void accept(String request, StatementCount count) {
+      completed.add(new Request(request, count));
+    }
+  }
+}